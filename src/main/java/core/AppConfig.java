@@ -3,8 +3,30 @@ package core;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * <p>Configuration of the test run. Each value is resolved from the following sources, the last one winning :</p>
+ *
+ * <ol>
+ *     <li>{@code resources/config.properties}, parsed once</li>
+ *     <li>Environment variables, named after the key in upper snake case with a {@code QA_} prefix
+ *     (e.g. {@code QA_TEST_ENVIRONMENT} for {@code testEnvironment})</li>
+ *     <li>System properties, named after the key (e.g. {@code -Dbrowser=firefox})</li>
+ *     <li>Per-thread overrides, see {@link #withOverrides(Map, Callable)}</li>
+ * </ol>
+ *
+ * <p>All values are parsed and validated when the sources are loaded, so an invalid value fails the run immediately
+ * instead of the first test using it. The resolved values form an immutable {@link Snapshot}.</p>
+ */
 public final class AppConfig {
 
 	private AppConfig() {}
@@ -31,8 +53,8 @@ public final class AppConfig {
 
 
 	public enum testEnvironment {
-		local		("0.0.0.0:8443", "/test/git-repos/testmobile/test-android-pos/build/outputs/apk/" + appFilename),
-		stage		("test-stage.herokuapp.com", "s3.amazonaws.com/test-stage/static-content/apks/" + appFilename),
+		local		("0.0.0.0:8443", "/test/git-repos/testmobile/test-android-pos/build/outputs/apk/%s"),
+		stage		("test-stage.herokuapp.com", "s3.amazonaws.com/test-stage/static-content/apks/%s"),
 		prod		("www.test.com", "test.com/link/apk");
 
 		private final String webPath;
@@ -44,85 +66,519 @@ public final class AppConfig {
 		}
 
 		public String getWebPath() { return this.webPath; }
-		public String getAPKPath() { return this.apkPath; }
+		public String getAPKPath() { return String.format(this.apkPath, getAppFilename()); }
 	}
 
 
-	private static final String browser 					= getProperty("browser");
-	private static final String appFilename 				= getProperty("appFilename");
-	private static final String deviceName 					= getProperty("deviceName");
-	private static final String restaurant 					= getProperty("restaurant");
-	private static final String buildJobName 				= getProperty("buildJobName");
-	private static final String buildJobNumber 				= getProperty("buildJobNumber");
-	private static final Machine machine				 	= Machine.valueOf(getProperty("machine"));
-	private static final testEnvironment testEnv			= testEnvironment.valueOf(getProperty("testEnvironment"));
-	private static final String packageName					= getProperty("packageName");
+	/**
+	 * An immutable set of resolved and validated configuration values.
+	 */
+	public static final class Snapshot {
+
+		private final Map<String, String> values;
+
+		private final String browser;
+		private final String appFilename;
+		private final String deviceName;
+		private final String restaurant;
+		private final String buildJobName;
+		private final String buildJobNumber;
+		private final Machine machine;
+		private final testEnvironment testEnv;
+		private final String packageName;
+		private final String groupExpression;
+		private final String changedFiles;
+		private final String changedSince;
+		private final String failureWebhook;
+		private final boolean failureDigest;
+		private final String smtpHost;
+		private final int smtpPort;
+		private final boolean smtpSsl;
+		private final int screenshotQuality;
+		private final int screenshotMaxWidth;
+		private final int screenshotMaxHeight;
+		private final boolean quietLogging;
+		private final boolean driverPool;
+		private final int maxSessionsPerNode;
+		private final boolean pageSourceMode;
+		private final long pageSourceMaxAge;
+		private final String databaseUrl;
+		private final String databaseUser;
+		private final String databasePassword;
+		private final int databasePoolSize;
+		private final boolean databaseSnapshot;
+		private final int shardIndex;
+		private final int shardCount;
+		private final String durationHistoryFile;
+		private final String durationHistoryOutput;
+
+		private Snapshot(Map<String, String> values) {
+			List<String> errors = new ArrayList<>();
+			Parser parser = new Parser(values, errors);
+
+			this.values				= Collections.unmodifiableMap(new HashMap<>(values));
+			this.browser			= parser.getRequired("browser");
+			this.appFilename		= parser.getRequired("appFilename");
+			this.deviceName			= parser.getRequired("deviceName");
+			this.restaurant			= parser.getOptional("restaurant", null);
+			this.buildJobName		= parser.getOptional("buildJobName", "");
+			this.buildJobNumber		= parser.getOptional("buildJobNumber", "");
+			this.machine			= parser.getEnum("machine", Machine.class);
+			this.testEnv			= parser.getEnum("testEnvironment", testEnvironment.class);
+			this.packageName		= parser.getOptional("packageName", "");
+			this.groupExpression	= parser.getOptional("groupExpression", "");
+			this.changedFiles		= parser.getOptional("changedFiles", "");
+			this.changedSince		= parser.getOptional("changedSince", "");
+			this.failureWebhook		= parser.getOptional("failureWebhook", "");
+			this.failureDigest		= parser.getBoolean("failureDigest", false);
+			this.smtpHost			= parser.getOptional("smtpHost", "smtp.gmail.com");
+			this.smtpPort			= (int) parser.getLong("smtpPort", 465);
+			this.smtpSsl			= parser.getBoolean("smtpSsl", true);
+			this.screenshotQuality	= (int) parser.getLong("screenshotQuality", 80);
+			this.screenshotMaxWidth	= (int) parser.getLong("screenshotMaxWidth", 1280);
+			this.screenshotMaxHeight = (int) parser.getLong("screenshotMaxHeight", 1280);
+			this.quietLogging		= parser.getBoolean("quietLogging", false);
+			this.driverPool			= parser.getBoolean("driverPool", false);
+			this.maxSessionsPerNode	= (int) parser.getLong("maxSessionsPerNode", 2);
+			this.pageSourceMode		= parser.getBoolean("pageSourceMode", false);
+			this.pageSourceMaxAge	= parser.getLong("pageSourceMaxAge", 500);
+			this.databaseUrl		= parser.getOptional("databaseUrl", (machine == null) ? null : "jdbc:postgresql://" + machine.getAddress() + ":5432/test_dev");
+			this.databaseUser		= parser.getOptional("databaseUser", "postgres");
+			this.databasePassword	= parser.getOptional("databasePassword", "admin");
+			this.databasePoolSize	= (int) parser.getLong("databasePoolSize", 4);
+			this.databaseSnapshot	= parser.getBoolean("databaseSnapshot", false);
+			this.durationHistoryFile = parser.getOptional("durationHistoryFile", "test-durations.properties");
+			this.durationHistoryOutput = parser.getOptional("durationHistoryOutput", "test-durations.out.properties");
+
+			int[] shard				= parser.getShard("shard");
+			this.shardIndex			= shard[0];
+			this.shardCount			= shard[1];
+
+			if (screenshotQuality < 1 || screenshotQuality > 100) {
+				errors.add("screenshotQuality must be between 1 and 100, was '" + screenshotQuality + "'");
+			}
+
+			if (screenshotMaxWidth < 1 || screenshotMaxHeight < 1) {
+				errors.add("screenshotMaxWidth and screenshotMaxHeight must be positive");
+			}
+
+			if (!errors.isEmpty()) {
+				throw new RuntimeException("Invalid configuration : " + String.join(", ", errors));
+			}
+		}
+
+		public String get(String key) { return values.get(key); }
+
+		public String getBrowser() { return browser; }
+
+		public String getAppFilename() { return appFilename; }
+
+		public String getDeviceName() { return deviceName; }
+
+		public String getRestaurant() { return restaurant; }
+
+		public String getBuildJobName() { return buildJobName; }
+
+		public String getBuildJobNumber() { return buildJobNumber; }
+
+		public Machine getMachine() { return machine; }
+
+		public testEnvironment gettestEnv() { return testEnv; }
+
+		public String getPackageName() { return packageName; }
+
+		public String getGroupExpression() { return groupExpression; }
+
+		public String getChangedFiles() { return changedFiles; }
+
+		public String getChangedSince() { return changedSince; }
+
+		public String getFailureWebhook() { return failureWebhook; }
+
+		public boolean isFailureDigestEnabled() { return failureDigest; }
+
+		public String getSmtpHost() { return smtpHost; }
+
+		public int getSmtpPort() { return smtpPort; }
+
+		public boolean isSmtpSsl() { return smtpSsl; }
+
+		public int getScreenshotQuality() { return screenshotQuality; }
+
+		public int getScreenshotMaxWidth() { return screenshotMaxWidth; }
+
+		public int getScreenshotMaxHeight() { return screenshotMaxHeight; }
+
+		public boolean isQuietLogging() { return quietLogging; }
+
+		public boolean isDriverPoolEnabled() { return driverPool; }
+
+		public int getMaxSessionsPerNode() { return maxSessionsPerNode; }
+
+		public boolean isPageSourceMode() { return pageSourceMode; }
+
+		public long getPageSourceMaxAge() { return pageSourceMaxAge; }
+
+		public String getDatabaseUrl() { return databaseUrl; }
+
+		public String getDatabaseUser() { return databaseUser; }
+
+		public String getDatabasePassword() { return databasePassword; }
 
+		public int getDatabasePoolSize() { return databasePoolSize; }
+
+		public boolean isDatabaseSnapshotEnabled() { return databaseSnapshot; }
+
+		public int getShardIndex() { return shardIndex; }
+
+		public int getShardCount() { return shardCount; }
+
+		public String getDurationHistoryFile() { return durationHistoryFile; }
+
+		public String getDurationHistoryOutput() { return durationHistoryOutput; }
+
+		/**
+		 * Returns a new snapshot with some values replaced.
+		 *
+		 * @param overrides		Values by key
+		 * @return				The new snapshot
+		 * @throws RuntimeException		If an overridden value is invalid
+		 */
+		public Snapshot with(Map<String, String> overrides) {
+			Map<String, String> merged = new HashMap<>(values);
+			merged.putAll(overrides);
+
+			return new Snapshot(merged);
+		}
+	}
+
+
+	private static final String configFile 					= "resources/config.properties";
+	private static final String environmentPrefix 			= "QA_";
+	private static final List<String> configurationKeys		= Arrays.asList("machine", "testEnvironment", "browser", "appFilename",
+			"deviceName", "restaurant", "buildJobName", "buildJobNumber", "packageName", "groupExpression", "quietLogging", "driverPool",
+			"maxSessionsPerNode", "pageSourceMode", "pageSourceMaxAge", "databaseUrl", "databaseUser", "databasePassword",
+			"databasePoolSize", "databaseSnapshot", "shard", "durationHistoryFile", "durationHistoryOutput",
+			"changedFiles", "changedSince", "failureWebhook", "failureDigest", "smtpHost", "smtpPort", "smtpSsl",
+			"screenshotQuality", "screenshotMaxWidth", "screenshotMaxHeight");
 
 	private static final String sauceLabsUser 				= "testqa";
 	private static final String sauceLabsKey				= "";
 	private static final String appPackage 					= "com.test.pos";
 	private static final String appActivity 				= ".RootActivity";
 
-	private static int testNumber 							= 0;
-	private static String testName 							= null;
+	private static final Snapshot baseSnapshot 				= new Snapshot(loadSources());
+	private static final InheritableThreadLocal<Snapshot> threadSnapshot = new InheritableThreadLocal<>();
+
+
+	/**
+	 * Returns the configuration of the current thread : the shared configuration, with the overrides of the thread
+	 * if any.
+	 *
+	 * @return		The current snapshot
+	 */
+	public static Snapshot snapshot() {
+		Snapshot snapshot = threadSnapshot.get();
+		return (snapshot == null) ? baseSnapshot : snapshot;
+	}
+
+	/**
+	 * Executes the {@code Callable} with some configuration values overridden for the current thread, and for the
+	 * threads it starts. Allows running e.g. different machine and browser combinations concurrently in one JVM.
+	 *
+	 * @param overrides		Values by key, e.g. {@code "browser" -> "firefox"}
+	 * @param method		The executing code block
+	 * @param <T>			Return type of the code block
+	 * @return				The result of the executing block
+	 * @throws Exception	Any exception thrown by the executing block
+	 * @throws RuntimeException		If an overridden value is invalid
+	 */
+	public static <T> T withOverrides(Map<String, String> overrides, Callable<T> method) throws Exception {
+		Snapshot previous = threadSnapshot.get();
+		threadSnapshot.set(snapshot().with(overrides));
+
+		try {
+			return method.call();
+
+		} finally {
+			threadSnapshot.set(previous);
+		}
+	}
+
+	/**
+	 * Overrides some configuration values for the current thread until {@link #clearOverrides()} is called.
+	 *
+	 * @param overrides		Values by key, e.g. {@code "browser" -> "firefox"}
+	 * @throws RuntimeException		If an overridden value is invalid
+	 */
+	public static void setOverrides(Map<String, String> overrides) {
+		threadSnapshot.set(baseSnapshot.with(overrides));
+	}
+
+	public static void clearOverrides() {
+		threadSnapshot.remove();
+	}
+
+	/**
+	 * Executes the {@code Callable} with the given snapshot as the configuration of the current thread, e.g. the
+	 * snapshot of the test which queued a task to a pooled thread. Unlike {@link #withOverrides(Map, Callable)}, the
+	 * snapshot replaces the configuration of the thread rather than being layered on it.
+	 *
+	 * @param snapshot		The configuration to run with
+	 * @param method		The executing code block
+	 * @param <T>			Return type of the code block
+	 * @return				The result of the executing block
+	 * @throws Exception	Any exception thrown by the executing block
+	 */
+	static <T> T runWith(Snapshot snapshot, Callable<T> method) throws Exception {
+		Snapshot previous = threadSnapshot.get();
+		threadSnapshot.set(snapshot);
+
+		try {
+			return method.call();
+
+		} finally {
+			threadSnapshot.set(previous);
+		}
+	}
+
 
+	public static testEnvironment gettestEnv() { return snapshot().gettestEnv(); }
 
-	public static testEnvironment gettestEnv() { return testEnv; }
+	public static Machine getMachine() { return snapshot().getMachine(); }
 
-	public static Machine getMachine() { return machine; }
+	public static String getBaseUrl() { return "https://" + gettestEnv().getWebPath(); }
 
-	public static String getBaseUrl() { return "https://" + testEnv.getWebPath(); }
+	public static String getBrowser() { return snapshot().getBrowser(); }
 
-	public static String getBrowser() { return browser; }
+	public static String getAppFilename() { return snapshot().getAppFilename(); }
 
-	public static String getDeviceName() { return deviceName; }
+	public static String getDeviceName() { return snapshot().getDeviceName(); }
 
 	public static String getAppPackage() { return appPackage; }
 
 	public static String getAppActivity() { return appActivity; }
 
-	public static String getRestaurant() { return restaurant; }
+	public static String getRestaurant() { return snapshot().getRestaurant(); }
 
 	public static String getSauceLabsUser() { return sauceLabsUser; }
 
 	public static String getSauceLabsKey() { return sauceLabsKey; }
 
-	public static String getBuildJobName() { return buildJobName; }
+	public static String getBuildJobName() { return snapshot().getBuildJobName(); }
 
-	public static String getBuildJobNumber() { return buildJobNumber; }
+	public static String getBuildJobNumber() { return snapshot().getBuildJobNumber(); }
 
 	public static String getJenkinsIp() { return "172.16.50.50"; }
 
 	public static String getJenkinsPort() { return "8080"; }
 
-	public static int getTestNumber() { return testNumber; }
+	/**
+	 * @return		The number of the running test class in the run; or 0 outside of a test
+	 * @see			ExecutionContext#getTestNumber()
+	 */
+	public static int getTestNumber() {
+		ExecutionContext context = ExecutionContext.current();
+		return (context == null) ? 0 : context.getTestNumber();
+	}
 
-	public static void setTestNumber(int newTestNumber) { testNumber = newTestNumber; }
+	/**
+	 * @return		The name of the running test class and its phase; or null outside of a test
+	 * @see			ExecutionContext#getTestName()
+	 */
+	public static String getTestName() {
+		ExecutionContext context = ExecutionContext.current();
+		return (context == null) ? null : context.getTestName();
+	}
 
-	public static String getTestName() { return testName; }
+	public static String getPackageName() { return snapshot().getPackageName(); }
 
-	public static void setTestName(String newTestName) {
-		testName = newTestName;
-	}
+	public static String getGroupExpression() { return snapshot().getGroupExpression(); }
 
-	public static String getPackageName() { return packageName; }
+	public static String getChangedFiles() { return snapshot().getChangedFiles(); }
 
+	public static String getChangedSince() { return snapshot().getChangedSince(); }
 
-	private static String getProperty(String property) {
-		Properties prop = new Properties();
+	public static String getFailureWebhook() { return snapshot().getFailureWebhook(); }
 
-		try {
+	public static boolean isFailureDigestEnabled() { return snapshot().isFailureDigestEnabled(); }
+
+	public static String getSmtpHost() { return snapshot().getSmtpHost(); }
+
+	public static int getSmtpPort() { return snapshot().getSmtpPort(); }
+
+	public static boolean isSmtpSsl() { return snapshot().isSmtpSsl(); }
+
+	public static boolean isQuietLogging() { return snapshot().isQuietLogging(); }
+
+	public static boolean isDriverPoolEnabled() { return snapshot().isDriverPoolEnabled(); }
+
+	public static int getMaxSessionsPerNode() { return snapshot().getMaxSessionsPerNode(); }
+
+	public static boolean isPageSourceMode() { return snapshot().isPageSourceMode(); }
+
+	public static long getPageSourceMaxAge() { return snapshot().getPageSourceMaxAge(); }
+
+	public static boolean isDatabaseSnapshotEnabled() { return snapshot().isDatabaseSnapshotEnabled(); }
+
+	public static int getShardIndex() { return snapshot().getShardIndex(); }
+
+	public static int getShardCount() { return snapshot().getShardCount(); }
 
-			InputStream input = new FileInputStream("resources/config.properties");
+	public static String getDurationHistoryFile() { return snapshot().getDurationHistoryFile(); }
+
+	public static String getDurationHistoryOutput() { return snapshot().getDurationHistoryOutput(); }
+
+
+	/**
+	 * Reads the configuration file, then layers the environment variables and system properties of the known keys
+	 * on top of it.
+	 *
+	 * @return		Raw values by key
+	 */
+	private static Map<String, String> loadSources() {
+		Properties prop = new Properties();
+
+		try (InputStream input = new FileInputStream(configFile)) {
 			prop.load(input);
 
 		} catch (IOException ex) {
-			throw new RuntimeException("Failed to read property : " + property);
+			throw new RuntimeException("Failed to read configuration : " + configFile, ex);
+		}
+
+		return layerSources(prop, System::getenv, System::getProperty);
+	}
 
+	/**
+	 * Layers the environment variables and system properties of the known keys on top of the configuration file.
+	 *
+	 * @param fileValues			The values of the configuration file
+	 * @param environment			Looks up an environment variable by name
+	 * @param systemProperties		Looks up a system property by name
+	 * @return						Raw values by key
+	 */
+	static Map<String, String> layerSources(Properties fileValues, Function<String, String> environment, Function<String, String> systemProperties) {
+		Map<String, String> values = new HashMap<>();
+		fileValues.stringPropertyNames().forEach((key) -> values.put(key, fileValues.getProperty(key).trim()));
+
+		for (String key : configurationKeys) {
+			String environmentValue = environment.apply(environmentPrefix + toUpperSnakeCase(key));
+			String systemValue = systemProperties.apply(key);
+
+			if (environmentValue != null) values.put(key, environmentValue.trim());
+			if (systemValue != null) values.put(key, systemValue.trim());
 		}
 
-		return prop.getProperty(property);
+		return values;
+	}
+
+	private static String toUpperSnakeCase(String key) {
+		return key.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+	}
+
+
+	/**
+	 * Parses raw values, collecting every invalid value instead of failing on the first one.
+	 */
+	private static final class Parser {
+
+		private final Map<String, String> values;
+		private final List<String> errors;
+
+		private Parser(Map<String, String> values, List<String> errors) {
+			this.values = values;
+			this.errors = errors;
+		}
+
+		String getRequired(String key) {
+			String value = values.get(key);
+
+			if (value == null || value.isEmpty()) {
+				errors.add(key + " is required");
+			}
+
+			return value;
+		}
+
+		String getOptional(String key, String defaultValue) {
+			String value = values.get(key);
+			return (value == null || value.isEmpty()) ? defaultValue : value;
+		}
+
+		boolean getBoolean(String key, boolean defaultValue) {
+			String value = values.get(key);
+
+			if (value == null || value.isEmpty()) {
+				return defaultValue;
+
+			} else if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+				errors.add(key + " must be true or false, was '" + value + "'");
+				return defaultValue;
+			}
+
+			return Boolean.parseBoolean(value);
+		}
+
+		long getLong(String key, long defaultValue) {
+			String value = values.get(key);
+
+			if (value == null || value.isEmpty()) {
+				return defaultValue;
+			}
+
+			try {
+				return Long.parseLong(value);
+
+			} catch (NumberFormatException e) {
+				errors.add(key + " must be a number, was '" + value + "'");
+				return defaultValue;
+			}
+		}
+
+		/**
+		 * Parses a shard selection such as {@code 2/4}, the second of four shards.
+		 *
+		 * @return		The 1-based shard index and the shard count; {@code 1/1} if not set
+		 */
+		int[] getShard(String key) {
+			String value = values.get(key);
+
+			if (value == null || value.isEmpty()) {
+				return new int[] {1, 1};
+			}
+
+			String[] parts = value.split("/");
+
+			try {
+				int index = Integer.parseInt(parts[0].trim());
+				int count = Integer.parseInt(parts[1].trim());
+
+				if (parts.length == 2 && index >= 1 && index <= count) {
+					return new int[] {index, count};
+				}
+
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				// Reported below
+			}
+
+			errors.add(key + " must be <index>/<count> with 1 <= index <= count, was '" + value + "'");
+			return new int[] {1, 1};
+		}
+
+		<E extends Enum<E>> E getEnum(String key, Class<E> type) {
+			String value = getRequired(key);
+
+			try {
+				return (value == null) ? null : Enum.valueOf(type, value);
+
+			} catch (IllegalArgumentException e) {
+				List<String> names = new ArrayList<>();
+				for (E constant : type.getEnumConstants()) names.add(constant.name());
+
+				errors.add(key + " must be one of " + names + ", was '" + value + "'");
+				return null;
+			}
+		}
 	}
 
-}
\ No newline at end of file
+}
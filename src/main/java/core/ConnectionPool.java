@@ -0,0 +1,271 @@
+package core;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.Log;
+
+/**
+ * <p>A bounded pool of JDBC connections, shared by all {@link Database} instances. At most {@code databasePoolSize}
+ * connections are open at a time; further borrowers wait for a connection to be released.</p>
+ *
+ * <p>Each connection keeps an LRU cache of its prepared statements, so a statement executed repeatedly is parsed and
+ * planned once per connection. Connections idle for a while are validated before being handed out again.</p>
+ */
+final class ConnectionPool {
+
+    private static final int maxCachedStatements = 64;
+    private static final long validationIntervalInMillis = TimeUnit.SECONDS.toMillis(30);
+    private static final long borrowTimeoutInSeconds = 60;
+
+    private static volatile ConnectionPool sharedPool = null;
+
+    private final String url;
+    private final Properties properties;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private volatile boolean isClosed = false;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+
+    ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.properties = new Properties();
+        this.properties.setProperty("user", user);
+        this.properties.setProperty("password", password);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+
+    /**
+     * Returns the pool of the configured database, creating it on first use. The pool is closed when the JVM exits.
+     *
+     * @return      The shared pool
+     */
+    static ConnectionPool getShared() {
+        if (sharedPool == null) {
+            synchronized (ConnectionPool.class) {
+                if (sharedPool == null) {
+                    AppConfig.Snapshot config = AppConfig.snapshot();
+
+                    if (config.getDatabaseUrl().startsWith("jdbc:postgresql:")) {
+                        try {
+                            Class.forName("org.postgresql.Driver");
+
+                        } catch (ClassNotFoundException e) {
+                            throw new RuntimeException("Cannot locate PostgreSQL JDBC Driver !  Include in your library path!", e);
+                        }
+                    }
+
+                    ConnectionPool pool = new ConnectionPool(config.getDatabaseUrl(), config.getDatabaseUser(), config.getDatabasePassword(), config.getDatabasePoolSize());
+
+                    Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "ConnectionPool-shutdown"));
+                    sharedPool = pool;
+                }
+            }
+        }
+
+        return sharedPool;
+    }
+
+
+    /**
+     * Borrows a connection, waiting for one to be released if the pool is exhausted.
+     *
+     * @return      A connection for the exclusive use of the caller, until it is closed
+     * @throws RuntimeException     If no connection could be borrowed or opened
+     */
+    PooledConnection borrow() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutInSeconds, TimeUnit.SECONDS)) {
+                throw new RuntimeException("No database connection released after " + borrowTimeoutInSeconds + " seconds ! Check for unclosed Database instances");
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database connection !", e);
+        }
+
+        try {
+            PooledConnection pooled;
+
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (pooled.isUsable()) {
+                    borrowed.increment();
+                    pooled.isBorrowed = true;
+                    return pooled;
+                }
+
+                pooled.discard();
+            }
+
+            pooled = new PooledConnection(DriverManager.getConnection(url, properties));
+            created.increment();
+            borrowed.increment();
+            pooled.isBorrowed = true;
+
+            return pooled;
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new RuntimeException("Connection Failed! Check output console", e);
+        }
+    }
+
+    /**
+     * Closes all connections. Connections borrowed at that time are closed when they are released.
+     */
+    void close() {
+        isClosed = true;
+        PooledConnection pooled;
+
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            pooled.discard();
+        }
+    }
+
+
+    /**
+     * Returns a summary of the pool for logs, e.g. at the end of a run.
+     *
+     * @return      The number of connections opened and borrowed, and the statement cache hits and misses
+     */
+    String getStatistics() {
+        return "ConnectionPool : " + created.sum() + " opened, " + borrowed.sum() + " borrowed, "
+                + statementHits.sum() + " statement hits, " + statementMisses.sum() + " statement misses";
+    }
+
+    static String getSharedStatistics() {
+        return (sharedPool == null) ? "ConnectionPool : unused" : sharedPool.getStatistics();
+    }
+
+
+    /**
+     * A borrowed connection. Closing it returns it to the pool; its cached statements stay open for the next borrower.
+     */
+    final class PooledConnection implements AutoCloseable {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxCachedStatements) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+
+        private long releasedInMillis = System.currentTimeMillis();
+        private boolean isBorrowed = false;
+        private boolean isBroken = false;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection getConnection() { return connection; }
+
+        /**
+         * Returns the cached prepared statement for the SQL, preparing it on first use.
+         *
+         * @param sqlStatement  The SQL, with {@code ?} placeholders for parameters
+         * @return              A prepared statement; must not be closed by the caller
+         * @throws SQLException If the statement cannot be prepared
+         */
+        PreparedStatement prepare(String sqlStatement) throws SQLException {
+            PreparedStatement statement = statements.get(sqlStatement);
+
+            if (statement == null || statement.isClosed()) {
+                statementMisses.increment();
+                statement = connection.prepareStatement(sqlStatement);
+                statements.put(sqlStatement, statement);
+
+            } else {
+                statementHits.increment();
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+
+            return statement;
+        }
+
+        /**
+         * Marks the connection to be discarded instead of returned to the pool, e.g. after a connection error.
+         */
+        void markBroken() {
+            isBroken = true;
+        }
+
+        @Override
+        public void close() {
+            if (!isBorrowed) {
+                return;
+            }
+
+            isBorrowed = false;
+
+            try {
+                if (!isBroken && !connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+
+            } catch (SQLException e) {
+                isBroken = true;
+            }
+
+            if (isBroken || isClosed) {
+                discard();
+
+            } else {
+                releasedInMillis = System.currentTimeMillis();
+                idleConnections.offerFirst(this);
+            }
+
+            permits.release();
+        }
+
+        private boolean isUsable() {
+            try {
+                return System.currentTimeMillis() - releasedInMillis < validationIntervalInMillis || connection.isValid(5);
+
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void discard() {
+            statements.values().forEach(ConnectionPool::closeQuietly);
+            statements.clear();
+            closeQuietly(connection);
+        }
+    }
+
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+
+        } catch (Exception e) {
+            Log.debug("Failed to close {} : {}", resource, e.getMessage());
+        }
+    }
+
+}
@@ -2,96 +2,486 @@ package core;
 
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import data.users.Customer;
 import pages.web.home.LogInPage;
 import utils.Log;
 import utils.core.WebDriverUtils;
 
-public class Database {
+/**
+ * Access to the test database. Connections are borrowed from a shared, bounded {@link ConnectionPool} : an instance
+ * borrows a connection on its first statement and returns it when closed, so instances must be closed after use.
+ *
+ * <pre>{@code try (Database database = new Database()) { ... }}</pre>
+ */
+public class Database implements AutoCloseable {
 	
-	Connection connection = null;
+	private static final int batchSize = 1000;
+	private static final int defaultFetchSize = 1000;
 
+	// Bound parameters per statement are limited by the 16-bit count of the Postgres protocol
+	private static final int maxParameters = 32767;
 
-	public Database() {
+	private ConnectionPool.PooledConnection connection = null;
+	private final List<Statement> openStatements = new ArrayList<>();
 
-		try {
-			Class.forName("org.postgresql.Driver");
-            connection = DriverManager.getConnection("jdbc:postgresql://" + AppConfig.getMachine().getAddress() + ":5432/test_dev", "postgres", "admin");
-
-		} catch (ClassNotFoundException e) {
-			throw new RuntimeException("Cannot locate PostgreSQL JDBC Driver !  Include in your library path!", e);
 
-		} catch (SQLException e) {
-            throw new RuntimeException("Connection Failed! Check output console", e);
+	public Database() {}
 
-        }
 
+	/**
+	 * Returns the connection of this instance, borrowing one from the pool on first use.
+	 */
+	private ConnectionPool.PooledConnection getConnection() {
 		if (connection == null) {
-            throw new RuntimeException("Connection Failed!");
+			connection = ConnectionPool.getShared().borrow();
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Returns the connection to the pool. Result sets returned by {@link #executeQuery(String, Object...)} are no
+	 * longer readable once the instance is closed.
+	 */
+	@Override
+	public void close() {
+		openStatements.forEach((statement) -> {
+			try {
+				statement.close();
+
+			} catch (SQLException e) {
+				Log.debug("Failed to close statement : {}", e.getMessage());
+			}
+		});
+		openStatements.clear();
+
+		if (connection != null) {
+			connection.close();
+			connection = null;
 		}
 	}
 
 
     //region SQL Execute Wrapper
-    public ResultSet executeQuery(String sqlStatement) {
+    /**
+     * Executes a query. With parameters, the query runs through a cached prepared statement, and its result set stays
+     * readable until the same query is executed again or this instance is closed. Without parameters, the query runs
+     * through a plain statement, as SQL built as a string may contain a literal {@code ?}, e.g. the jsonb operators;
+     * its result set stays readable until this instance is closed.
+     *
+     * @param sqlStatement  The query, with a {@code ?} placeholder for each parameter
+     * @param parameters    The values bound to the placeholders
+     */
+    public ResultSet executeQuery(String sqlStatement, Object... parameters) {
         try {
-            return connection.createStatement().executeQuery(sqlStatement);
+            if (parameters.length == 0) {
+                Statement statement = getConnection().getConnection().createStatement();
+                statement.closeOnCompletion();
+                openStatements.add(statement);
+
+                return statement.executeQuery(sqlStatement);
+            }
+
+            return bind(getConnection().prepare(sqlStatement), parameters).executeQuery();
 
         } catch (SQLException e) {
-            Log.error("Failed : " + sqlStatement);
-            throw new RuntimeException("Failed to executeQuery() !", e);
+            throw fail("Failed to executeQuery() !", sqlStatement, e);
         }
     }
 
-    public int executeUpdate(String sqlStatement) {
+    /**
+     * Executes an insert, update or delete : through a cached prepared statement with parameters, otherwise through a
+     * plain statement, see {@link #executeQuery(String, Object...)}.
+     *
+     * @param sqlStatement  The statement, with a {@code ?} placeholder for each parameter
+     * @param parameters    The values bound to the placeholders
+     * @return              The number of rows affected
+     */
+    public int executeUpdate(String sqlStatement, Object... parameters) {
+        if (parameters.length == 0) {
+            try (Statement statement = getConnection().getConnection().createStatement()) {
+                return statement.executeUpdate(sqlStatement);
+
+            } catch (SQLException e) {
+                throw fail("Failed to executeUpdate() !", sqlStatement, e);
+            }
+        }
+
         try {
-            return connection.createStatement().executeUpdate(sqlStatement);
+            return bind(getConnection().prepare(sqlStatement), parameters).executeUpdate();
 
         } catch (SQLException e) {
-            Log.error("Failed : " + sqlStatement);
-            throw new RuntimeException("Failed to executeUpdate() !", e);
+            throw fail("Failed to executeUpdate() !", sqlStatement, e);
         }
     }
 
+    /**
+     * Executes any SQL, e.g. a script of several statements. The statement is not cached.
+     */
     public boolean execute(String sqlStatement) {
+        try (Statement statement = getConnection().getConnection().createStatement()) {
+            return statement.execute(sqlStatement);
+
+        } catch (SQLException e) {
+            throw fail("Failed to execute() !", sqlStatement, e);
+        }
+    }
+
+    /**
+     * Executes a statement once per row, sent in batches of {@value #batchSize} and committed as a single
+     * transaction. Nothing is committed if any row fails.
+     *
+     * <pre>{@code database.executeBatch("UPDATE employee SET passcode = ? WHERE id = ?", rows);}</pre>
+     *
+     * @param sqlStatement  The statement, with a {@code ?} placeholder for each parameter
+     * @param rows          The parameters of each execution
+     * @return              The number of rows affected by each execution
+     */
+    public int[] executeBatch(String sqlStatement, List<Object[]> rows) {
+        int[] result = new int[rows.size()];
+
+        inTransaction(sqlStatement, () -> {
+            PreparedStatement statement = getConnection().prepare(sqlStatement);
+
+            try {
+                for (int start = 0; start < rows.size(); start += batchSize) {
+                    List<Object[]> chunk = rows.subList(start, Math.min(start + batchSize, rows.size()));
+
+                    for (Object[] row : chunk) {
+                        bind(statement, row).addBatch();
+                    }
+
+                    int[] counts = statement.executeBatch();
+                    System.arraycopy(counts, 0, result, start, counts.length);
+                }
+
+            } finally {
+                // The statement is cached by the connection : rows queued before a failure must not be sent by its next use
+                statement.clearBatch();
+            }
+        });
+
+        Log.info("{} row(s) executed in batch", rows.size());
+        return result;
+    }
+
+    /**
+     * Inserts rows with multi-row {@code INSERT ... VALUES (...), (...)} statements, committed as a single
+     * transaction. Rows are split across statements to respect the server's limit of bound parameters.
+     *
+     * <pre>{@code database.insertRows("employee", Arrays.asList("first_name", "last_name"), rows);}</pre>
+     *
+     * @param table         The table name
+     * @param columns       The column names, in the order of the values of each row
+     * @param rows          The values of each row
+     * @return              The number of rows inserted
+     * @throws IllegalArgumentException     If there are no columns, or a name is not a valid identifier
+     */
+    public int insertRows(String table, List<String> columns, List<Object[]> rows) {
+        checkIdentifier(table);
+        columns.forEach(Database::checkIdentifier);
+
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("No columns to insert into " + table);
+        }
+
+        int rowsPerStatement = Math.max(1, Math.min(batchSize, maxParameters / columns.size()));
+        int[] inserted = {0};
+
+        inTransaction("INSERT INTO " + table, () -> {
+            for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+                List<Object[]> chunk = rows.subList(start, Math.min(start + rowsPerStatement, rows.size()));
+                PreparedStatement statement = getConnection().prepare(getInsertStatement(table, columns, chunk.size()));
+                int index = 1;
+
+                for (Object[] row : chunk) {
+                    if (row.length != columns.size()) {
+                        throw new IllegalArgumentException("Expected " + columns.size() + " values per row, got " + row.length);
+                    }
+
+                    for (Object value : row) {
+                        statement.setObject(index++, value);
+                    }
+                }
+
+                inserted[0] += statement.executeUpdate();
+            }
+        });
+
+        Log.info("{} row(s) inserted into {}", inserted[0], table);
+        return inserted[0];
+    }
+
+
+    /**
+     * Executes a script of several statements as a single transaction. Nothing is committed if any statement fails.
+     *
+     * @param script    The statements, separated by semicolons
+     */
+    public void executeTransaction(String script) {
+        inTransaction(script, () -> {
+            try (Statement statement = getConnection().getConnection().createStatement()) {
+                statement.execute(script);
+            }
+        });
+    }
+
+
+    private interface SqlBlock {
+        void execute() throws SQLException;
+    }
+
+    private void inTransaction(String sqlStatement, SqlBlock block) {
+        Connection transaction = getConnection().getConnection();
+
         try {
-            return connection.createStatement().execute(sqlStatement);
+            transaction.setAutoCommit(false);
+
+            try {
+                block.execute();
+                transaction.commit();
+
+            } catch (SQLException | RuntimeException e) {
+                // A failed rollback must not hide the error which caused it
+                try {
+                    transaction.rollback();
+
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+
+                throw e;
+
+            } finally {
+                transaction.setAutoCommit(true);
+            }
 
         } catch (SQLException e) {
-            Log.error("Failed : " + sqlStatement);
-            throw new RuntimeException("Failed to execute() !", e);
+            // Postgres reports the cause of a failed batch as the next exception
+            throw fail("Failed to execute transaction !", sqlStatement, (e.getNextException() != null) ? e.getNextException() : e);
+        }
+    }
+
+    private static String getInsertStatement(String table, List<String> columns, int rowCount) {
+        String placeholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES "
+                + String.join(", ", Collections.nCopies(rowCount, placeholders));
+    }
+
+    private static void checkIdentifier(String identifier) {
+        if (!identifier.matches("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?")) {
+            throw new IllegalArgumentException("Invalid SQL identifier : " + identifier);
+        }
+    }
+
+    private static PreparedStatement bind(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+
+        return statement;
+    }
+
+    private RuntimeException fail(String message, String sqlStatement, SQLException e) {
+        Log.error("Failed : " + sqlStatement);
+
+        // SQL state class 08 : the connection itself failed, and must not be returned to the pool
+        if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+            connection.markBroken();
         }
+
+        return new RuntimeException(message, e);
     }
     //endregion
 
 	
-	public List<String> select(String column, String sqlStatement) {
+    //region Streaming
+    /**
+     * Streams the rows of a query, fetching {@code defaultFetchSize} rows at a time instead of loading the whole
+     * result. The stream must be closed, which the terminal operations do not do :
+     *
+     * <pre>{@code try (Stream<Order> orders = database.stream("SELECT id, status FROM orders WHERE restaurant_id = ?", mapper, id)) { ... }}</pre>
+     *
+     * <p>The connection of this instance is in a transaction while the stream is open, so no other statement can be
+     * executed on this instance until it is closed.</p>
+     *
+     * @param sqlStatement  The query, with a {@code ?} placeholder for each parameter
+     * @param mapper        Maps each row
+     * @param parameters    The values bound to the placeholders
+     * @param <T>           The mapped type
+     * @return              A lazily fetched stream of mapped rows
+     */
+    public <T> Stream<T> stream(String sqlStatement, RowMapper<T> mapper, Object... parameters) {
+        return stream(defaultFetchSize, sqlStatement, mapper, parameters);
+    }
 
-        try {
-            ResultSet rs = executeQuery(sqlStatement);
-            List<String> result = new ArrayList<>();
+    /**
+     * Streams the rows of a query, fetching the given number of rows at a time.
+     *
+     * @see #stream(String, RowMapper, Object...)
+     */
+    public <T> Stream<T> stream(int fetchSize, String sqlStatement, RowMapper<T> mapper, Object... parameters) {
+        Connection transaction = getConnection().getConnection();
+        long startInMillis = System.currentTimeMillis();
+        int[] rowCount = {0};
+        Statement statement = null;
 
-            Log.info(column + "  FROM  " + sqlStatement);
+        Log.step("Streaming  {}", sqlStatement);
 
-            while (rs.next()) {
-                String value = rs.getString(column);
-                result.add(value);
+        try {
+            // Postgres only fetches rows incrementally inside a transaction
+            transaction.setAutoCommit(false);
+            ResultSet rs;
+
+            // Without parameters, a literal '?' in the SQL, e.g. a jsonb operator, must not be taken for a placeholder
+            if (parameters.length == 0) {
+                statement = transaction.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                rs = statement.executeQuery(sqlStatement);
 
-                Log.info(column + " = " + value);
+            } else {
+                PreparedStatement prepared = transaction.prepareStatement(sqlStatement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement = prepared;
+                prepared.setFetchSize(fetchSize);
+                rs = bind(prepared, parameters).executeQuery();
             }
 
-            return result;
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+
+                        rowCount[0]++;
+                        action.accept(mapper.map(rs));
+                        return true;
+
+                    } catch (SQLException e) {
+                        throw fail("Failed to read row " + (rowCount[0] + 1) + " !", sqlStatement, e);
+                    }
+                }
+            };
+
+            Statement openStatement = statement;
+
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    rs.close();
+                    openStatement.close();
+                    transaction.commit();
+                    transaction.setAutoCommit(true);
+
+                } catch (SQLException e) {
+                    throw fail("Failed to close stream !", sqlStatement, e);
+                }
+
+                Log.info("{} row(s) read in {} ms", rowCount[0], System.currentTimeMillis() - startInMillis);
+            });
 
         } catch (SQLException e) {
-            Log.error("Failed : " + sqlStatement);
-            throw new RuntimeException("Failed to select column from query !", e);
+            try {
+                if (statement != null) statement.close();
+                transaction.rollback();
+                transaction.setAutoCommit(true);
+
+            } catch (SQLException ignored) {
+                connection.markBroken();
+            }
+
+            throw fail("Failed to stream query !", sqlStatement, e);
         }
+    }
+
+    /**
+     * Reads all rows of a query.
+     *
+     * @param sqlStatement  The query, with a {@code ?} placeholder for each parameter
+     * @param mapper        Maps each row
+     * @param parameters    The values bound to the placeholders
+     * @param <T>           The mapped type
+     * @return              The mapped rows
+     */
+    public <T> List<T> query(String sqlStatement, RowMapper<T> mapper, Object... parameters) {
+        try (Stream<T> rows = stream(sqlStatement, mapper, parameters)) {
+            return rows.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Passes each row of a query to the action, without keeping the rows in memory.
+     *
+     * @param sqlStatement  The query, with a {@code ?} placeholder for each parameter
+     * @param mapper        Maps each row
+     * @param action        Receives each mapped row
+     * @param parameters    The values bound to the placeholders
+     * @param <T>           The mapped type
+     */
+    public <T> void forEach(String sqlStatement, RowMapper<T> mapper, Consumer<? super T> action, Object... parameters) {
+        try (Stream<T> rows = stream(sqlStatement, mapper, parameters)) {
+            rows.forEach(action);
+        }
+    }
+    //endregion
+
+	
+	/**
+	 * Reads a single column of a query as strings.
+	 *
+	 * @param column		The column label
+	 * @param sqlStatement	The query, with a {@code ?} placeholder for each parameter
+	 * @param parameters	The values bound to the placeholders
+	 * @return				The values of the column
+	 */
+	public List<String> select(String column, String sqlStatement, Object... parameters) {
+		return query(sqlStatement, RowMapper.column(column), parameters);
+	}
+
+
+	/**
+	 * Syncs the restaurant and its linked mobile devices with the current content of the database, e.g. after a
+	 * {@link DatabaseSnapshot} restore. Runs on a web driver leased for the sync and logged in as admin, without
+	 * touching the drivers of the calling test.
+	 */
+	public void syncDatabase() {
+		try {
+			Driver.runWith(new Driver.Session(), () -> {
+				Driver.setWeb(DriverFactory.leaseWebDriver());
+
+				try {
+					new LogInPage().logIn();
+					WebDriverUtils.deltaReload();
+					WebDriverUtils.pushReloadDataToMobile();
+
+				} finally {
+					Driver.releaseWeb();
+				}
+
+				return null;
+			});
+
+		} catch (RuntimeException e) {
+			throw e;
+
+		} catch (Exception e) {
+			throw new RuntimeException("ERROR : Database sync failed", e);
+		}
 	}
 
 }
@@ -0,0 +1,154 @@
+package core;
+
+import java.util.List;
+
+import utils.Log;
+
+/**
+ * <p>Restores the test database to a golden copy, instead of a full reset before every test class.</p>
+ *
+ * <p>The first reset of a run is a full reset. Its result is then copied into the {@code golden} schema, and a
+ * statement-level trigger on each table records the tables changed by tests in {@code golden._dirty_tables}. Later
+ * resets only restore the changed tables from the copy, and reset all sequences.</p>
+ *
+ * <p>Restoring runs with {@code session_replication_role = replica}, which skips foreign key checks and the tracking
+ * triggers, so tables can be restored in any order. This requires a superuser connection.</p>
+ *
+ * <p>A restore only replaces the full reset's changes to the database. Steps of the full reset outside of the
+ * database, such as syncing the devices with the restored data, must be passed separately so that they also run
+ * after each restore, see {@link #reset(Database, Runnable, Runnable)}.</p>
+ *
+ * <p>Enabled by {@code databaseSnapshot} in config.properties; otherwise every reset is a full reset.</p>
+ */
+public final class DatabaseSnapshot {
+
+    private static final String goldenSchema = "golden";
+    private static final String trackingTrigger = "zz_golden_mark_dirty";
+
+    private static boolean isCaptured = false;
+
+    private DatabaseSnapshot() {}
+
+
+    /**
+     * Resets the database : restores the changed tables if a snapshot was captured during this run, otherwise runs
+     * the full reset and captures its result.
+     *
+     * <pre>{@code DatabaseSnapshot.reset(database, database::resetDatabase);}</pre>
+     *
+     * @param database      The database to reset
+     * @param fullReset     The full reset, run the first time and whenever snapshots are disabled
+     */
+    public static void reset(Database database, Runnable fullReset) {
+        reset(database, fullReset, () -> {});
+    }
+
+    /**
+     * Resets the database like {@link #reset(Database, Runnable)}, and runs a step of the full reset outside of the
+     * database after each restore, e.g. syncing the devices with the restored data.
+     *
+     * <pre>{@code DatabaseSnapshot.reset(database, database::resetDatabaseAndSync, database::syncDatabase);}</pre>
+     *
+     * @param database      The database to reset
+     * @param fullReset     The full reset, run the first time and whenever snapshots are disabled
+     * @param afterRestore  Run after each restore, as the full reset it replaces would have
+     */
+    public static synchronized void reset(Database database, Runnable fullReset, Runnable afterRestore) {
+
+        if (!AppConfig.isDatabaseSnapshotEnabled()) {
+            fullReset.run();
+
+        } else if (!isCaptured) {
+            fullReset.run();
+            capture(database);
+            isCaptured = true;
+
+        } else {
+            restore(database);
+            afterRestore.run();
+        }
+    }
+
+
+    /**
+     * Copies all tables and sequence values of the public schema, and installs the change tracking triggers.
+     *
+     * @param database      The database to capture
+     */
+    static void capture(Database database) {
+        long start = System.currentTimeMillis();
+        List<String> tables = database.select("table_name",
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'public' AND table_type = 'BASE TABLE'");
+        List<String> sequences = database.select("sequence_name",
+                "SELECT sequence_name FROM information_schema.sequences WHERE sequence_schema = 'public'");
+
+        // Dropping the schema also drops the triggers of a previous capture, which depend on its function
+        StringBuilder script = new StringBuilder()
+                .append("DROP SCHEMA IF EXISTS ").append(goldenSchema).append(" CASCADE;")
+                .append("CREATE SCHEMA ").append(goldenSchema).append(";")
+                .append("CREATE TABLE ").append(goldenSchema).append("._dirty_tables (table_name text NOT NULL);")
+                .append("CREATE TABLE ").append(goldenSchema).append("._sequences (sequence_name text, last_value bigint, is_called boolean);")
+                // Duplicates are tolerated rather than enforced by a key, so tracking can never fail an application statement.
+                // The function runs as its owner, as the application's database role cannot write to the golden schema.
+                // Its search path is pinned, so that the caller's search path cannot substitute objects it resolves.
+                .append("CREATE FUNCTION ").append(goldenSchema).append(".mark_dirty() RETURNS trigger LANGUAGE plpgsql SECURITY DEFINER ")
+                .append("SET search_path = pg_catalog, ").append(goldenSchema).append(" AS $$ BEGIN ")
+                .append("INSERT INTO ").append(goldenSchema).append("._dirty_tables SELECT TG_TABLE_NAME WHERE NOT EXISTS ")
+                .append("(SELECT 1 FROM ").append(goldenSchema).append("._dirty_tables WHERE table_name = TG_TABLE_NAME); ")
+                .append("RETURN NULL; END $$;");
+
+        for (String table : tables) {
+            script.append("CREATE TABLE ").append(inGolden(table)).append(" AS TABLE ").append(inPublic(table)).append(";")
+                    .append("CREATE TRIGGER ").append(trackingTrigger)
+                    .append(" AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON ").append(inPublic(table))
+                    .append(" FOR EACH STATEMENT EXECUTE PROCEDURE ").append(goldenSchema).append(".mark_dirty();");
+        }
+
+        for (String sequence : sequences) {
+            script.append("INSERT INTO ").append(goldenSchema).append("._sequences SELECT '").append(sequence.replace("'", "''"))
+                    .append("', last_value, is_called FROM ").append(inPublic(sequence)).append(";");
+        }
+
+        database.executeTransaction(script.toString());
+        Log.info("Captured database snapshot of {} table(s) in {} ms", tables.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Restores the tables changed since the last capture or restore, and all sequences.
+     *
+     * @param database      The database to restore
+     */
+    static void restore(Database database) {
+        long start = System.currentTimeMillis();
+        List<String> dirtyTables = database.select("table_name",
+                "SELECT DISTINCT d.table_name FROM " + goldenSchema + "._dirty_tables d JOIN information_schema.tables t "
+                        + "ON t.table_schema = ? AND t.table_name = d.table_name", goldenSchema);
+
+        StringBuilder script = new StringBuilder("SET LOCAL session_replication_role = replica;");
+
+        for (String table : dirtyTables) {
+            script.append("DELETE FROM ").append(inPublic(table)).append(";")
+                    .append("INSERT INTO ").append(inPublic(table)).append(" SELECT * FROM ").append(inGolden(table)).append(";");
+        }
+
+        script.append("DELETE FROM ").append(goldenSchema).append("._dirty_tables;")
+                .append("SELECT setval(format('public.%I', sequence_name)::regclass, last_value, is_called) FROM ").append(goldenSchema).append("._sequences;");
+
+        database.executeTransaction(script.toString());
+        Log.info("Restored {} changed table(s) from database snapshot in {} ms", dirtyTables.size(), System.currentTimeMillis() - start);
+    }
+
+
+    private static String inPublic(String name) {
+        return "public." + quote(name);
+    }
+
+    private static String inGolden(String name) {
+        return goldenSchema + "." + quote(name);
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+}
@@ -2,14 +2,158 @@ package core;
 
 import org.openqa.selenium.WebDriver;
 
+import java.util.concurrent.Callable;
+
+/**
+ * <p>Registry of the drivers used by the currently running test.</p>
+ *
+ * <p>Drivers are bound to a {@code Driver.Session}, and each thread has its own session. This allows TestNG to run
+ * test classes in parallel (e.g. {@code parallel="classes"}) while page objects keep resolving their driver through
+ * {@link #getMobile()} and {@link #getWeb()}, without knowing which test they belong to.</p>
+ *
+ * <p>Sessions are not inherited : a new thread, including the threads of a pool, starts with an empty session.
+ * Inheriting would bind pooled threads, which are created lazily by whichever test first submits a task, to that
+ * test's drivers for their whole life. Other threads must be handed the session explicitly through
+ * {@link #capture()} and {@link #runWith(Session, Callable)}, or run tasks wrapped by
+ * {@link ExecutionContext#wrap(Callable)}.</p>
+ */
 public final class Driver {
 
-    public static WebDriver mobile = null;
-    public static WebDriver web = null;
+    private static final ThreadLocal<Session> currentSession = new ThreadLocal<Session>() {
+        @Override
+        protected Session initialValue() {
+            return new Session();
+        }
+    };
 
     private Driver() {}
 
-}
 
+    /**
+     * Holds the mobile and web drivers of a single test. A session is shared by reference, so drivers set from a
+     * helper thread running with {@link #runWith(Session, Callable)} are visible to the owning test.
+     */
+    public static final class Session {
+
+        private volatile WebDriver mobile = null;
+        private volatile WebDriver web = null;
+
+        public WebDriver getMobile() { return mobile; }
+
+        public WebDriver getWeb() { return web; }
+    }
+
+
+    public static WebDriver getMobile() { return currentSession.get().mobile; }
+
+    public static void setMobile(WebDriver driver) { currentSession.get().mobile = driver; }
+
+    public static WebDriver getWeb() { return currentSession.get().web; }
+
+    public static void setWeb(WebDriver driver) { currentSession.get().web = driver; }
+
+
+    /**
+     * Quits and unbinds the mobile driver of the current session, if any.
+     */
+    public static void quitMobile() {
+        Session session = currentSession.get();
+
+        if (session.mobile != null) {
+            ElementCache.disable(session.mobile);
+            session.mobile.quit();
+            session.mobile = null;
+        }
+    }
+
+    /**
+     * Quits and unbinds the web driver of the current session, if any.
+     */
+    public static void quitWeb() {
+        Session session = currentSession.get();
 
+        if (session.web != null) {
+            ElementCache.disable(session.web);
+            session.web.quit();
+            session.web = null;
+        }
+    }
 
+
+    /**
+     * Releases the mobile driver of the current session to the {@link DriverPool}, if any, and unbinds it.
+     */
+    public static void releaseMobile() {
+        Session session = currentSession.get();
+
+        if (session.mobile != null) {
+            DriverFactory.release(session.mobile);
+            session.mobile = null;
+        }
+    }
+
+    /**
+     * Releases the web driver of the current session to the {@link DriverPool}, if any, and unbinds it.
+     */
+    public static void releaseWeb() {
+        Session session = currentSession.get();
+
+        if (session.web != null) {
+            DriverFactory.release(session.web);
+            session.web = null;
+        }
+    }
+
+
+    /**
+     * Returns the session bound to the current thread, to be handed off to another thread.
+     *
+     * @return		The current session
+     * @see			#runWith(Session, Callable)
+     */
+    public static Session capture() {
+        return currentSession.get();
+    }
+
+    /**
+     * Binds a session to the current thread, replacing the existing one. Used by worker threads that have been
+     * handed a session captured from a test thread.
+     *
+     * @param session	The session to bind; a new empty session if null
+     * @return			The previously bound session
+     */
+    public static Session bind(Session session) {
+        Session previous = currentSession.get();
+        currentSession.set((session == null) ? new Session() : session);
+        return previous;
+    }
+
+    /**
+     * Removes the session bound to the current thread. The next access creates a new empty session.
+     */
+    public static void unbind() {
+        currentSession.remove();
+    }
+
+    /**
+     * Executes the {@code Callable} with the given session bound to the current thread, restoring the previous
+     * session afterwards.
+     *
+     * @param session	The session to bind during execution
+     * @param method	The executing code block
+     * @param <T>		Return type of the code block
+     * @return			The result of the executing block
+     * @throws Exception	Any exception thrown by the executing block
+     */
+    public static <T> T runWith(Session session, Callable<T> method) throws Exception {
+        Session previous = bind(session);
+
+        try {
+            return method.call();
+
+        } finally {
+            bind(previous);
+        }
+    }
+
+}
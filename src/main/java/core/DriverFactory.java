@@ -9,13 +9,14 @@ import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
 import java.io.File;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.TreeMap;
 
 import core.AppConfig.Machine;
 import core.AppConfig.testEnvironment;
 import data.enums.saucelabs.BrowserInfo;
 import io.appium.java_client.android.AndroidDriver;
-import utils.Log;
 
 public final class DriverFactory {
 
@@ -42,6 +43,62 @@ public final class DriverFactory {
     }
 
 
+    /**
+     * Leases a mobile driver from the {@link DriverPool} if {@code driverPool} is enabled, otherwise creates one. The
+     * app of a reused session is restarted, or reset if {@code fullReset} is requested.
+     *
+     * @return      A mobile driver, to be passed to {@link #release(WebDriver)} once the test class is done
+     */
+    public static WebDriver leaseMobileDriver() {
+        return leaseMobileDriver(true, false);
+    }
+
+    public static WebDriver leaseMobileDriver(boolean noReset, boolean fullReset) {
+        return (AppConfig.isDriverPoolEnabled()) ? DriverPool.lease(getAndroidSessionType(noReset, fullReset)) : getMobileDriver(noReset, fullReset);
+    }
+
+    /**
+     * Leases a web driver from the {@link DriverPool} if {@code driverPool} is enabled, otherwise creates one. The
+     * cookies of a reused session are deleted and its extra windows closed.
+     *
+     * @return      A web driver, to be passed to {@link #release(WebDriver)} once the test class is done
+     */
+    public static WebDriver leaseWebDriver() {
+        return (AppConfig.isDriverPoolEnabled()) ? DriverPool.lease(getWebSessionType()) : getWebDriver();
+    }
+
+    /**
+     * Returns a leased driver to the {@link DriverPool}, or quits it if it was not leased from the pool.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     */
+    public static void release(WebDriver driver) {
+        DriverPool.release(driver);
+    }
+
+    /**
+     * Creates mobile sessions ahead of the first lease, e.g. from a {@code @BeforeSuite} method.
+     *
+     * @param count     The number of sessions; bounded by the room left under {@code maxSessionsPerNode}
+     */
+    public static void warmUpMobileDrivers(int count) {
+        if (AppConfig.isDriverPoolEnabled()) {
+            DriverPool.warmUp(getAndroidSessionType(true, false), count);
+        }
+    }
+
+    /**
+     * Creates web sessions ahead of the first lease, e.g. from a {@code @BeforeSuite} method.
+     *
+     * @param count     The number of sessions; bounded by the room left under {@code maxSessionsPerNode}
+     */
+    public static void warmUpWebDrivers(int count) {
+        if (AppConfig.isDriverPoolEnabled()) {
+            DriverPool.warmUp(getWebSessionType(), count);
+        }
+    }
+
+
     public static WebDriver getSauceLabsDriver(BrowserInfo info) {
 
         if (AppConfig.getMachine() == Machine.sauce && AppConfig.gettestEnv() == testEnvironment.stage) {
@@ -53,7 +110,46 @@ public final class DriverFactory {
 
 
 
-    private static AndroidDriver createAndroidDriver(boolean noReset, boolean fullReset) {
+    private static DriverPool.SessionType getAndroidSessionType(boolean noReset, boolean fullReset) {
+        DesiredCapabilities capabilities = getAndroidCapabilities(noReset, fullReset);
+
+        return new DriverPool.SessionType(AppConfig.getMachine().getAddressMobile(), new TreeMap<>(capabilities.asMap()).toString(),
+                () -> createAndroidDriver(noReset, fullReset),
+                (driver) -> ((AndroidDriver) driver).currentActivity() != null,
+                (driver) -> {
+                    if (fullReset) {
+                        ((AndroidDriver) driver).resetApp();
+                    } else {
+                        // Equivalent to the launch of a new session with noReset : the app restarts with its data
+                        ((AndroidDriver) driver).closeApp();
+                        ((AndroidDriver) driver).launchApp();
+                    }
+                });
+    }
+
+    private static DriverPool.SessionType getWebSessionType() {
+        String node = (AppConfig.getMachine() == Machine.local) ? "local" : AppConfig.getMachine().getAddressWeb();
+
+        return new DriverPool.SessionType(node, AppConfig.getBrowser(),
+                DriverFactory::getWebDriver,
+                (driver) -> driver.getWindowHandle() != null,
+                (driver) -> {
+                    String firstWindow = driver.getWindowHandles().iterator().next();
+
+                    for (String window : driver.getWindowHandles()) {
+                        if (!window.equals(firstWindow)) {
+                            driver.switchTo().window(window).close();
+                        }
+                    }
+
+                    driver.switchTo().window(firstWindow);
+                    driver.manage().deleteAllCookies();
+                    driver.get("about:blank");
+                });
+    }
+
+
+    private static DesiredCapabilities getAndroidCapabilities(boolean noReset, boolean fullReset) {
         DesiredCapabilities capabilities = new DesiredCapabilities();
         String urlBase = "http://";
 
@@ -71,13 +167,20 @@ public final class DriverFactory {
 
         capabilities.setCapability("app", urlBase + AppConfig.gettestEnv().getAPKPath());
 
-        AndroidDriver result = Elements.Wait(30, () -> {
-            Log.info("Attempting to create mobile driver...");
-            return new AndroidDriver(new URL("http://" + AppConfig.getMachine().getAddressMobile() + "/wd/hub"), capabilities);
-        });
+        return capabilities;
+    }
+
+    private static AndroidDriver createAndroidDriver(boolean noReset, boolean fullReset) {
+        DesiredCapabilities capabilities = getAndroidCapabilities(noReset, fullReset);
 
-        if (result != null) { return result; }
-        throw new RuntimeException("Failed to createAndroidDriver() !");
+        try {
+            URL remoteUrl = new URL("http://" + AppConfig.getMachine().getAddressMobile() + "/wd/hub");
+
+            return SessionRetryPolicy.forAppium().createSession(remoteUrl, "mobile driver", () -> new AndroidDriver(remoteUrl, capabilities));
+
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Failed to createAndroidDriver() !", e);
+        }
     }
 
 
@@ -0,0 +1,353 @@
+package core;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import utils.Log;
+
+/**
+ * <p>A pool of warm driver sessions, shared by test classes. Creating an Appium session installs and launches the
+ * app, which takes far longer than resetting the app of an existing session, so released sessions are kept and
+ * handed out again to the next test class requesting the same capabilities.</p>
+ *
+ * <p>Before a session is handed out again it is health checked and reset, see {@link SessionType}. Sessions which
+ * fail either step, have been idle for too long or have been leased too often are quit and replaced.</p>
+ *
+ * <p>The number of sessions open on each grid node, leased or idle, is bounded by {@code maxSessionsPerNode}. When a
+ * node is full, an idle session with other capabilities is evicted to make room.</p>
+ *
+ * <p>Sessions are leased and released through {@link DriverFactory}.</p>
+ */
+public final class DriverPool {
+
+    // Sessions must be reused before Appium's newCommandTimeout and the grid's idleTimeout (300 seconds) expire
+    private static final long maxIdleTimeInMillis = TimeUnit.SECONDS.toMillis(240);
+    private static final int maxLeasesPerSession = 25;
+    private static final long leaseTimeoutInSeconds = 300;
+
+    private static final Map<String, Deque<PooledDriver>> idleDrivers = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, PooledDriver> leasedDrivers = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<String, Semaphore> nodePermits = new ConcurrentHashMap<>();
+
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder reused = new LongAdder();
+    private static final LongAdder evicted = new LongAdder();
+
+    private static volatile boolean isShutDown = false;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverPool::shutdown, "DriverPool-shutdown"));
+    }
+
+    private DriverPool() {}
+
+
+    /**
+     * Describes the sessions of one set of capabilities : the grid node they run on, how to create them, how to check
+     * that they are still usable, and how to reset them before they are handed out again.
+     */
+    static final class SessionType {
+
+        private final String node;
+        private final String key;
+        private final Supplier<WebDriver> factory;
+        private final Predicate<WebDriver> healthCheck;
+        private final Consumer<WebDriver> reset;
+
+        /**
+         * @param node          Address of the grid node or Appium server creating the sessions
+         * @param capabilities  Description of the capabilities; sessions are only shared between equal capabilities
+         * @param factory       Creates a new session
+         * @param healthCheck   A single lightweight command returning true if the session is usable
+         * @param reset         Restores the app or browser of a reused session to its initial state
+         */
+        SessionType(String node, String capabilities, Supplier<WebDriver> factory, Predicate<WebDriver> healthCheck, Consumer<WebDriver> reset) {
+            this.node = node;
+            this.key = node + " " + capabilities;
+            this.factory = factory;
+            this.healthCheck = healthCheck;
+            this.reset = reset;
+        }
+    }
+
+
+    private static final class PooledDriver {
+
+        private final SessionType type;
+        private final WebDriver driver;
+        private int leases = 0;
+        private long releasedInMillis = System.currentTimeMillis();
+
+        private PooledDriver(SessionType type, WebDriver driver) {
+            this.type = type;
+            this.driver = driver;
+        }
+    }
+
+
+    /**
+     * Leases a session : an idle session with the same capabilities after it is health checked and reset, otherwise
+     * a new session once the node has room for one.
+     *
+     * @param type  The requested session type
+     * @return      A session for the exclusive use of the caller, until it is passed to {@link #release(WebDriver)}
+     */
+    static WebDriver lease(SessionType type) {
+        Deque<PooledDriver> idle = getIdleDrivers(type);
+        PooledDriver pooled;
+
+        while ((pooled = idle.pollFirst()) != null) {
+
+            if (System.currentTimeMillis() - pooled.releasedInMillis > maxIdleTimeInMillis) {
+                evict(pooled, "idle for too long");
+                continue;
+            }
+
+            try {
+                if (!type.healthCheck.test(pooled.driver)) {
+                    evict(pooled, "failed health check");
+                    continue;
+                }
+
+                type.reset.accept(pooled.driver);
+
+            } catch (Exception e) {
+                evict(pooled, e.getClass().getSimpleName());
+                continue;
+            }
+
+            reused.increment();
+            return checkOut(pooled);
+        }
+
+        return checkOut(create(type, true));
+    }
+
+    /**
+     * Returns a leased session to the pool. Sessions which were not leased from the pool are quit.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     */
+    static void release(WebDriver driver) {
+        ElementCache.disable(driver);
+        PageSourceSnapshot.invalidate(driver);
+
+        PooledDriver pooled = leasedDrivers.remove(driver);
+
+        if (pooled == null) {
+            driver.quit();
+            return;
+        }
+
+        if (isShutDown || pooled.leases >= maxLeasesPerSession) {
+            evict(pooled, isShutDown ? "pool shut down" : "lease limit reached");
+            return;
+        }
+
+        pooled.releasedInMillis = System.currentTimeMillis();
+
+        // Most recently used first, so surplus sessions expire instead of being kept alive
+        getIdleDrivers(pooled.type).offerFirst(pooled);
+        evictExpiredSessions(pooled.type.node);
+    }
+
+    /**
+     * Creates idle sessions ahead of the first lease. Sessions are created in parallel, up to the room left on the
+     * node : warming up never waits for a session to be released, nor evicts one.
+     *
+     * @param type      The session type to create
+     * @param count     The number of sessions to create
+     */
+    static void warmUp(SessionType type, int count) {
+        evictExpiredSessions(type.node);
+
+        int available = Math.min(count, getPermits(type.node).availablePermits());
+
+        if (available <= 0) {
+            Log.info("No room to warm up sessions on {}", type.node);
+            return;
+
+        } else if (available < count) {
+            Log.info("Only {} of {} session(s) fit on {}", available, count, type.node);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(available);
+        List<Future<PooledDriver>> sessions = new ArrayList<>();
+
+        Log.info("Warming up {} session(s) on {}", available, type.node);
+
+        for (int i = 0; i < available; i++) {
+            // Session factories read the configuration of the calling test
+            sessions.add(executor.submit(ExecutionContext.wrap(() -> create(type, false))));
+        }
+
+        try {
+            for (Future<PooledDriver> session : sessions) {
+                try {
+                    getIdleDrivers(type).offerLast(session.get());
+
+                } catch (Exception e) {
+                    Log.warn("Failed to warm up session on {} : {}", type.node, e.getMessage());
+                }
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Quits all sessions, leased and idle. Called automatically when the JVM exits.
+     */
+    public static void shutdown() {
+        isShutDown = true;
+
+        for (Deque<PooledDriver> idle : idleDrivers.values()) {
+            PooledDriver pooled;
+
+            while ((pooled = idle.pollFirst()) != null) {
+                evict(pooled, "pool shut down");
+            }
+        }
+
+        List<PooledDriver> leased;
+
+        synchronized (leasedDrivers) {
+            leased = new ArrayList<>(leasedDrivers.values());
+            leasedDrivers.clear();
+        }
+
+        leased.forEach((pooled) -> evict(pooled, "pool shut down"));
+    }
+
+
+    /**
+     * Returns a summary of the pool for logs, e.g. at the end of a run.
+     *
+     * @return      The number of sessions created, reused and evicted
+     */
+    public static String getStatistics() {
+        return "DriverPool : " + created.sum() + " created, " + reused.sum() + " reused, " + evicted.sum() + " evicted";
+    }
+
+
+    private static Deque<PooledDriver> getIdleDrivers(SessionType type) {
+        return idleDrivers.computeIfAbsent(type.key, (key) -> new ConcurrentLinkedDeque<>());
+    }
+
+    private static WebDriver checkOut(PooledDriver pooled) {
+        pooled.leases++;
+        leasedDrivers.put(pooled.driver, pooled);
+
+        return pooled.driver;
+    }
+
+    private static Semaphore getPermits(String node) {
+        return nodePermits.computeIfAbsent(node, (key) -> new Semaphore(AppConfig.getMaxSessionsPerNode(), true));
+    }
+
+    /**
+     * Creates a session once the node has room for one.
+     *
+     * @param type          The session type to create
+     * @param waitForRoom   True to evict an idle session and wait for room when the node is full; false to fail
+     */
+    private static PooledDriver create(SessionType type, boolean waitForRoom) {
+        Semaphore permits = getPermits(type.node);
+        evictExpiredSessions(type.node);
+
+        if (!permits.tryAcquire()) {
+
+            if (!waitForRoom) {
+                throw new RuntimeException("No room for a session on " + type.node + " !");
+            }
+
+            evictIdleSession(type.node);
+
+            try {
+                if (!permits.tryAcquire(leaseTimeoutInSeconds, TimeUnit.SECONDS)) {
+                    throw new RuntimeException("No session available on " + type.node + " after " + leaseTimeoutInSeconds + " seconds !");
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a session on " + type.node + " !", e);
+            }
+        }
+
+        try {
+            PooledDriver pooled = new PooledDriver(type, type.factory.get());
+            created.increment();
+
+            return pooled;
+
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Quits the idle sessions of the node which have expired, so that they do not hold their permits until the next
+     * lease of their session type.
+     */
+    private static void evictExpiredSessions(String node) {
+        long now = System.currentTimeMillis();
+
+        for (Deque<PooledDriver> idle : idleDrivers.values()) {
+            for (PooledDriver pooled : idle) {
+
+                if (pooled.type.node.equals(node) && now - pooled.releasedInMillis > maxIdleTimeInMillis && idle.remove(pooled)) {
+                    evict(pooled, "idle for too long");
+                }
+            }
+        }
+    }
+
+    private static void evictIdleSession(String node) {
+        for (Deque<PooledDriver> idle : idleDrivers.values()) {
+            for (PooledDriver pooled : idle) {
+
+                // remove() fails if another thread has leased the session in the meantime
+                if (pooled.type.node.equals(node) && idle.remove(pooled)) {
+                    evict(pooled, "making room on node");
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void evict(PooledDriver pooled, String reason) {
+        Log.info("Evicting session from {} : {}", pooled.type.node, reason);
+        evicted.increment();
+        ElementCache.disable(pooled.driver);
+
+        try {
+            pooled.driver.quit();
+
+        } catch (Exception e) {
+            Log.warn("Failed to quit evicted session : {}", e.getMessage());
+
+        } finally {
+            nodePermits.get(pooled.type.node).release();
+        }
+    }
+
+}
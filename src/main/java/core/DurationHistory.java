@@ -0,0 +1,133 @@
+package core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import utils.Log;
+
+/**
+ * <p>Durations of test classes in previous runs, read from {@code durationHistoryFile} as milliseconds by class name.
+ * Used by {@link TestScheduler} to order and shard the suite.</p>
+ *
+ * <p>The history file is only read : every shard of a run must compute its split from the same durations, so the
+ * durations of this run are written to {@code durationHistoryOutput} instead. Promoting the output to the history
+ * file between runs, e.g. as a CI artifact, is left to the build job. Each new duration is averaged with the previous
+ * one, so a single slow run does not reshuffle the shards. Saving merges with the output on disk, so shards running
+ * on the same agent can share one output file.</p>
+ */
+final class DurationHistory {
+
+    private static final double newDurationWeight = 0.5;
+
+    private static final Map<String, Long> recordedDurations = new ConcurrentHashMap<>();
+    private static volatile Map<String, Long> previousDurations = null;
+
+    private DurationHistory() {}
+
+
+    /**
+     * Returns the durations of previous runs.
+     *
+     * @return      Milliseconds by test class name; empty if there is no history yet
+     */
+    static Map<String, Long> getDurations() {
+        if (previousDurations == null) {
+            previousDurations = Collections.unmodifiableMap(load(AppConfig.getDurationHistoryFile()));
+        }
+
+        return previousDurations;
+    }
+
+    /**
+     * Records the duration of a test class in this run.
+     *
+     * @param testClassName     Fully qualified name of the test class
+     * @param durationInMillis  The time from the set up to the end of the tear down of the class
+     */
+    static void record(String testClassName, long durationInMillis) {
+        Long previous = getDurations().get(testClassName);
+
+        recordedDurations.put(testClassName, (previous == null) ? durationInMillis
+                : Math.round(newDurationWeight * durationInMillis + (1 - newDurationWeight) * previous));
+    }
+
+    /**
+     * Writes the history updated with the durations recorded in this run to the output file, merged with the
+     * durations other shards have written there.
+     */
+    static synchronized void save() {
+        if (recordedDurations.isEmpty()) {
+            return;
+        }
+
+        String outputFile = AppConfig.getDurationHistoryOutput();
+
+        if (new File(outputFile).getAbsoluteFile().equals(new File(AppConfig.getDurationHistoryFile()).getAbsoluteFile())) {
+            Log.warn("Not saving test durations : durationHistoryOutput must differ from durationHistoryFile");
+            return;
+        }
+
+        Map<String, Long> durations = new HashMap<>(getDurations());
+        durations.putAll(load(outputFile));
+        durations.putAll(recordedDurations);
+
+        Properties properties = new Properties();
+        durations.forEach((name, duration) -> properties.setProperty(name, String.valueOf(duration)));
+
+        try (OutputStream output = new FileOutputStream(outputFile)) {
+            properties.store(output, "Test class durations in milliseconds");
+
+        } catch (IOException e) {
+            Log.warn("Failed to save test durations : {}", e.getMessage());
+        }
+    }
+
+
+    private static Map<String, Long> load(String fileName) {
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        File file = new File(fileName);
+
+        if (!file.exists()) {
+            return durations;
+        }
+
+        Properties properties = new Properties();
+
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+
+        } catch (IOException e) {
+            Log.warn("Failed to read test durations : {}", e.getMessage());
+            return durations;
+        }
+
+        List<String> invalid = new ArrayList<>();
+
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                durations.put(name, Long.parseLong(properties.getProperty(name).trim()));
+
+            } catch (NumberFormatException e) {
+                invalid.add(name);
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            Log.warn("Ignoring invalid test durations : {}", invalid);
+        }
+
+        return durations;
+    }
+
+}
@@ -0,0 +1,150 @@
+package core;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>An opt-in, per-driver cache of resolved {@code WebElement}s, keyed by the locator chain of an {@link Elements}
+ * instance. Page object methods return a new {@code Elements} on every call, so without the cache each interaction
+ * re-resolves the full locator chain even if the page has not changed.</p>
+ *
+ * <p>A cached element is validated with a single lightweight command before it is reused, and discarded if it has
+ * gone stale. {@code Elements} also re-resolves transparently if a cached element goes stale during an operation or
+ * a wait.</p>
+ *
+ * <p>Only operations on the first element use the cache. Operations on the whole list, such as {@code size()} and
+ * {@code toList()}, always look the list up again, as a list that has grown or shrunk cannot be detected by
+ * validating its first element.</p>
+ *
+ * <pre>{@code ElementCache.enable(Driver.getWeb());}</pre>
+ *
+ * <p>Only enable the cache for pages which do not re-render elements in place, as an element that is re-rendered but
+ * kept attached to the page is still considered valid.</p>
+ *
+ * <p>Cached elements reference their driver, so the cache of a driver is only dropped by {@link #disable(WebDriver)}.
+ * {@link Driver} and {@link DriverPool} disable it whenever a driver is quit or released.</p>
+ */
+public final class ElementCache {
+
+    private static final int maxEntriesPerDriver = 256;
+
+    private static final Map<WebDriver, Map<String, List<WebElement>>> caches = new ConcurrentHashMap<>();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private ElementCache() {}
+
+
+    /**
+     * Enables caching of elements resolved by the driver.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     */
+    public static void enable(WebDriver driver) {
+        caches.computeIfAbsent(driver, (key) -> Collections.synchronizedMap(new LinkedHashMap<String, List<WebElement>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<WebElement>> eldest) {
+                return size() > maxEntriesPerDriver;
+            }
+        }));
+    }
+
+    /**
+     * Disables caching for the driver and discards its cached elements.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     */
+    public static void disable(WebDriver driver) {
+        if (driver != null) {
+            caches.remove(driver);
+        }
+    }
+
+    public static boolean isEnabled(WebDriver driver) {
+        return driver != null && caches.containsKey(driver);
+    }
+
+    /**
+     * Discards all cached elements of the driver, keeping the cache enabled.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     */
+    public static void invalidate(WebDriver driver) {
+        Map<String, List<WebElement>> cache = getCache(driver);
+
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+
+    /**
+     * Returns the cached elements for the locator chain, after validating that the first is still attached. Only the
+     * first element is validated, so the list must not be used for its size or its other elements.
+     *
+     * @param driver    An instance of an AndroidDriver or WebDriver
+     * @param key       The locator chain
+     * @return          The cached elements; or null if none are cached or they have gone stale
+     */
+    static List<WebElement> get(WebDriver driver, String key) {
+        Map<String, List<WebElement>> cache = getCache(driver);
+        List<WebElement> elements = (cache == null) ? null : cache.get(key);
+
+        if (elements == null) {
+            misses.increment();
+            return null;
+        }
+
+        try {
+            // Any command on a detached element throws a StaleElementReferenceException
+            elements.get(0).getTagName();
+            hits.increment();
+            return elements;
+
+        } catch (Exception e) {
+            cache.remove(key);
+            misses.increment();
+            return null;
+        }
+    }
+
+    static void put(WebDriver driver, String key, List<WebElement> elements) {
+        Map<String, List<WebElement>> cache = getCache(driver);
+
+        if (cache != null) {
+            cache.put(key, elements);
+        }
+    }
+
+    static void remove(WebDriver driver, String key) {
+        Map<String, List<WebElement>> cache = getCache(driver);
+
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+
+    private static Map<String, List<WebElement>> getCache(WebDriver driver) {
+        return (driver == null) ? null : caches.get(driver);
+    }
+
+
+    /**
+     * Returns a summary of the cache for logs, e.g. at the end of a run.
+     *
+     * @return      The number of cache hits and misses across all drivers
+     */
+    public static String getStatistics() {
+        return "ElementCache : " + hits.sum() + " hits, " + misses.sum() + " misses";
+    }
+
+}
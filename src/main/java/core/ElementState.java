@@ -0,0 +1,123 @@
+package core;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An immutable snapshot of the text, visibility and selected attributes of a single element, as read by
+ * {@link Elements#getStates(String...)}.</p>
+ *
+ * <p>A snapshot does not follow the element. Reading a snapshot never issues a driver command, which makes it the
+ * preferred way to verify long lists such as menus or checks.</p>
+ */
+public final class ElementState {
+
+    private static final String STATE_SCRIPT =
+            "var elements = arguments[0], names = arguments[1], states = [];" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  var element = elements[i], style = window.getComputedStyle(element), attributes = {};" +
+            "  var displayed = style.visibility !== 'hidden' && style.display !== 'none'" +
+            "      && (element.offsetWidth > 0 || element.offsetHeight > 0 || element.getClientRects().length > 0);" +
+            "  for (var j = 0; j < names.length; j++) {" +
+            "    var value = element.getAttribute(names[j]);" +
+            "    if (value === null && names[j] in element && element[names[j]] !== null) { value = String(element[names[j]]); }" +
+            "    attributes[names[j]] = value;" +
+            "  }" +
+            "  var text = displayed ? (element.innerText || element.textContent || '') : '';" +
+            "  states.push({ text : text.trim(), displayed : displayed, attributes : attributes });" +
+            "}" +
+            "return states;";
+
+    private final String text;
+    private final boolean displayed;
+    private final Map<String, String> attributes;
+
+
+    ElementState(String text, boolean displayed, Map<String, String> attributes) {
+        this.text = (text == null) ? "" : text;
+        this.displayed = displayed;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+
+    /**
+     * Reads the state of all elements with a single {@code executeScript} call.
+     *
+     * @param executor      The web driver executing the script
+     * @param elements      The resolved elements
+     * @param attributes    The attributes to read
+     * @return              A state per element, in the same order
+     */
+    static List<ElementState> fromScript(JavascriptExecutor executor, List<WebElement> elements, String... attributes) {
+
+        Object result = executor.executeScript(STATE_SCRIPT, elements, Arrays.asList(attributes));
+        List<ElementState> states = new ArrayList<>();
+
+        for (Object entry : (List<?>) result) {
+            Map<?, ?> state = (Map<?, ?>) entry;
+            Map<String, String> values = new LinkedHashMap<>();
+
+            for (Map.Entry<?, ?> attribute : ((Map<?, ?>) state.get("attributes")).entrySet()) {
+                values.put(String.valueOf(attribute.getKey()), (attribute.getValue() == null) ? null : String.valueOf(attribute.getValue()));
+            }
+
+            states.add(new ElementState((String) state.get("text"), Boolean.TRUE.equals(state.get("displayed")), values));
+        }
+
+        return states;
+    }
+
+    /**
+     * Reads the state of a single element with one driver command per property. Used when the state cannot be read
+     * in bulk.
+     *
+     * @param element       The resolved element
+     * @param attributes    The attributes to read
+     * @return              The state of the element
+     */
+    static ElementState fromElement(WebElement element, String... attributes) {
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (String attribute : attributes) {
+            values.put(attribute, element.getAttribute(attribute));
+        }
+
+        return new ElementState(element.getText(), element.isDisplayed(), values);
+    }
+
+
+    /**
+     * @return      The visible text of the element; empty if the element is hidden or has no text
+     */
+    public String getText() { return text; }
+
+    /**
+     * @return      True if the element was displayed when the snapshot was taken
+     */
+    public boolean isDisplayed() { return displayed; }
+
+    /**
+     * @param attribute     The name of an attribute requested in the snapshot
+     * @return              The value of the attribute; or null if it is not set or was not requested
+     */
+    public String getAttribute(String attribute) { return attributes.get(attribute); }
+
+    /**
+     * @return      All requested attributes, in the order they were requested
+     */
+    public Map<String, String> getAttributes() { return attributes; }
+
+
+    @Override
+    public String toString() {
+        return "{text='" + text + "', displayed=" + displayed + ", attributes=" + attributes + "}";
+    }
+
+}
@@ -8,6 +8,7 @@ import org.openqa.selenium.Point;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -16,6 +17,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import io.appium.java_client.TouchAction;
 import io.appium.java_client.android.AndroidDriver;
@@ -54,7 +56,14 @@ public class Elements implements Iterable<Elements> {
 	private WebDriver driver;
 
 	private List<LocatorEntry> locatorList;
-	private static boolean overrideTimeout = false;
+	private PollingStrategy pollingStrategy = null;
+	private Boolean pageSourceMode = null;
+	private boolean resolvedFromCache = false;
+
+	private static final ThreadLocal<WaitScope> currentWaitScope = new ThreadLocal<>();
+	private static volatile PollingStrategy defaultPollingStrategy = PollingStrategy.backoff(50, 2, 1000, 0.25);
+	private static volatile boolean defaultPageSourceMode = AppConfig.isPageSourceMode();
+	private static volatile long pageSourceMaxAgeInMillis = AppConfig.getPageSourceMaxAge();
 
 	private static final long defaultTimeOutInSeconds = 20;
 	private static final long nanoSecond = 1000000000;
@@ -136,8 +145,11 @@ public class Elements implements Iterable<Elements> {
 	 * checks happens before the UI updates, the loop could fail to return the desired result. Thus, this method
 	 * allows the {@code Callable} block to loop and re-fetch all necessary elements.</p>
 	 *
-	 * <p>Note: Using other wait methods inside the {@code Callable} block is not recommended and would lead to
-	 * undefined behaviour</p>
+	 * <p>An interrupt of the calling thread ends the wait with an exception, with the interrupt flag kept set.</p>
+	 *
+	 * <p>Waits are scoped to the calling thread, so concurrent tests never affect each other. Waits may be nested;
+	 * a nested wait, and any other wait method used inside the {@code Callable} block, shares the time budget of the
+	 * enclosing wait and never runs past its deadline.</p>
 	 *
 	 * <pre>{@code Elements result = Elements.Wait(() -> {
 	 *     for (Elements e : getChecksList()) {
@@ -156,52 +168,244 @@ public class Elements implements Iterable<Elements> {
 	 * @see							#Wait(Callable)
      */
 	public static <T> T Wait(long timeOutInSeconds, Callable<T> method) {
+		return Wait(timeOutInSeconds, defaultPollingStrategy, method);
+	}
 
-		final long timeOut = System.nanoTime() + timeOutInSeconds * nanoSecond;
+	/**
+	 * Executes the {@code Callable} method repeatedly until a non-null result is returned or the specified timeout
+	 * is reached, pausing between attempts as decided by the provided {@code PollingStrategy}. All
+	 * {@code Exception}s are ignored during the loop.
+	 *
+	 * <p>See {@link #Wait(long, Callable)} for a detailed example.</p>
+	 *
+	 * @param timeOutInSeconds		Time limit to execute the method
+	 * @param pollingStrategy		Decides the pause between attempts; the first attempt is immediate
+	 * @param method				The executing code block
+	 * @param <T>					Return type of the code block
+	 * @return						The result of the executing block; or null if the timeout was reached
+	 * @see							#Wait(long, Callable)
+	 */
+	public static <T> T Wait(long timeOutInSeconds, PollingStrategy pollingStrategy, Callable<T> method) {
+
+		WaitScope parentScope = currentWaitScope.get();
 		Exception lastException = null;
 		T result = null;
 
-		// Guards against nested uses of this method
-		// Does not prevent other waits being used inside the Callable block
-		if (overrideTimeout) {
-			throw new RuntimeException("ERROR : Undefined state in Elements.Wait()");
-		}
-
-		// Sets a flag which ignores fetch timeouts, forcing each explicit fetch to execute only once.
+		// Opens a scope which ignores fetch timeouts, forcing each explicit fetch to execute only once.
 		// This ensures that control of waits, and retries occur as a whole. A fetch failure inside
 		// the Callable block would therefore execute from the start of the Callable again rather than
-		// retrying just the failed fetch.
-		overrideTimeout = true;
+		// retrying just the failed fetch. Nested scopes are capped by the deadline of the enclosing scope.
+		WaitScope scope = new WaitScope(getTimeOutInNanoTime(timeOutInSeconds));
+		currentWaitScope.set(scope);
+		int attempt = 0;
 
-		while (System.nanoTime() < timeOut && result == null) {
-			try {
+		try {
+			do {
+				try {
 
-				Thread.sleep(100);
-				result = method.call();
+					PollingStrategy.pause(pollingStrategy, attempt, scope.getTimeOutInNanoTime());
+					scope.startAttempt(attempt++);
+					result = method.call();
 
-			} catch (Exception e) {
-				// Keep track of latest exception & Continue execution until timeout
-				lastException = e;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new ElementsException("ERROR : Wait() was interrupted", e);
+
+				} catch (Exception e) {
+					// An interrupt must stop the wait, e.g. when a set up step is cancelled, rather than count as a failed attempt
+					if (Thread.currentThread().isInterrupted()) {
+						throw new ElementsException("ERROR : Wait() was interrupted", e);
+					}
+
+					// Keep track of latest exception & Continue execution until timeout
+					lastException = e;
+				}
+
+			} while (result == null && System.nanoTime() < scope.getTimeOutInNanoTime());
+
+		} finally {
+			// Restores the enclosing scope, if any
+			if (parentScope == null) {
+				currentWaitScope.remove();
+			} else {
+				currentWaitScope.set(parentScope);
 			}
 		}
 
-		overrideTimeout = false;
-
 		if (result == null && lastException != null) {
-			Log.warn("Ignored :  " + lastException.getClass() + " " + lastException.getMessage());
+			Log.warn("Ignored :  {} {}", lastException.getClass(), lastException.getMessage());
 		}
 
 		return result;
 	}
 
 
+	/**
+	 * Sets the {@code PollingStrategy} used by all {@code Elements} instances that do not define their own, and by
+	 * {@link #Wait(long, Callable)}.
+	 *
+	 * @param pollingStrategy	The new default strategy
+	 * @see						#withPollingStrategy(PollingStrategy)
+	 */
+	public static void setDefaultPollingStrategy(PollingStrategy pollingStrategy) {
+		if (pollingStrategy == null) {
+			throw new IllegalArgumentException("ERROR : Default PollingStrategy cannot be null");
+		}
+
+		defaultPollingStrategy = pollingStrategy;
+	}
+
+	/**
+	 * Sets the {@code PollingStrategy} used when fetching this element. Cascading lookups created from this
+	 * instance inherit the strategy.
+	 *
+	 * @param pollingStrategy	The strategy for this instance; null to use the default strategy
+	 * @return					This instance
+	 * @see						#setDefaultPollingStrategy(PollingStrategy)
+	 */
+	public Elements withPollingStrategy(PollingStrategy pollingStrategy) {
+		this.pollingStrategy = pollingStrategy;
+		return this;
+	}
+
+	private PollingStrategy getPollingStrategy() {
+		return (pollingStrategy == null) ? defaultPollingStrategy : pollingStrategy;
+	}
+
+
+	/**
+	 * Enables reading Android elements from a cached page source snapshot for all {@code Elements} instances that
+	 * do not define their own mode.
+	 *
+	 * <p>In page source mode, reads and waits ({@link #size()}, {@link #isDisplayed()}, {@link #getText()},
+	 * {@link #getAttribute(String)}, {@link #waitForVisible(long)}, {@link #waitForNotVisible(long)} and
+	 * {@link #waitForTextVisible(String, long)}) evaluate the locators against a single {@code getPageSource()}
+	 * call, shared by all elements until it expires or an interaction occurs. Interactions are still performed on
+	 * the device. Locators which cannot be evaluated on a snapshot are always resolved on the device.</p>
+	 *
+	 * @param enabled			True to enable page source mode
+	 * @param maxAgeInMillis	The time a snapshot is reused for, unless invalidated by an interaction
+	 * @see						#withPageSourceMode(boolean)
+	 */
+	public static void setPageSourceMode(boolean enabled, long maxAgeInMillis) {
+		defaultPageSourceMode = enabled;
+		pageSourceMaxAgeInMillis = maxAgeInMillis;
+	}
+
+	/**
+	 * Enables or disables page source mode for this element. Cascading lookups created from this instance inherit
+	 * the mode.
+	 *
+	 * @param enabled	True to read this element from page source snapshots
+	 * @return			This instance
+	 * @see				#setPageSourceMode(boolean, long)
+	 */
+	public Elements withPageSourceMode(boolean enabled) {
+		this.pageSourceMode = enabled;
+		return this;
+	}
+
+	/**
+	 * Discards the cached page source snapshot of the driver. Must be called by code interacting with the device
+	 * outside of {@code Elements}, such as taps, swipes and scrolls.
+	 *
+	 * @param driver	An instance of an AndroidDriver
+	 */
+	public static void invalidatePageSource(WebDriver driver) {
+		PageSourceSnapshot.invalidate(driver);
+	}
+
+	private boolean isPageSourceMode() {
+		boolean enabled = (pageSourceMode == null) ? defaultPageSourceMode : pageSourceMode;
+		return enabled && driver instanceof AndroidDriver && compilePageSourceSteps() != null;
+	}
+
+	/**
+	 * Evaluates the {@code locatorList} against page source snapshots until the condition returns a non-null
+	 * result or the timeout is reached. The first attempt may reuse a cached snapshot; retries always fetch a new
+	 * snapshot. Inside {@link #Wait(long, Callable)}, where each call makes a single attempt, a retry of the
+	 * {@code Callable} block only reuses a snapshot taken during that retry.
+	 *
+	 * @param timeOutInNanoTime		{@code System.nanoTime()} which defines the time limit of the condition
+	 * @param condition				Maps the matched nodes to a result; returns null to keep polling
+	 * @param <T>					Return type of the condition
+	 * @return						The result of the condition; or null if the timeout was reached
+	 */
+	private <T> T pollPageSource(long timeOutInNanoTime, Function<List<org.w3c.dom.Element>, T> condition) {
+
+		List<Object> steps = compilePageSourceSteps();
+		T result = null;
+		int attempt = 0;
+
+		do {
+			try {
+
+				PollingStrategy.pause(getPollingStrategy(), attempt, timeOutInNanoTime);
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ElementsException("ERROR : Page source evaluation was interrupted", e);
+			}
+
+			WaitScope scope = currentWaitScope.get();
+			PageSourceSnapshot snapshot = (scope != null && scope.isRetry())
+					? PageSourceSnapshot.get(driver, pageSourceMaxAgeInMillis, scope.getAttemptStartedInNanoTime())
+					: PageSourceSnapshot.get(driver, (attempt == 0) ? pageSourceMaxAgeInMillis : 0);
+
+			attempt++;
+			result = condition.apply(snapshot.evaluate(steps));
+
+		} while (!isInsideWait() && result == null && System.nanoTime() < timeOutInNanoTime);
+
+		return result;
+	}
+
+	/**
+	 * Reads a value from the first node matched in page source snapshots, waiting for the node to exist.
+	 *
+	 * @param operation		Name of the operation for logs
+	 * @param reader		Reads the value from the node
+	 * @param <T>			Type of the value
+	 * @return				The value read
+	 */
+	private <T> T readFromPageSource(String operation, Function<org.w3c.dom.Element, T> reader) {
+		Log.step("Executing {} on {} from page source", operation, compilePageSourceSteps());
+
+		List<org.w3c.dom.Element> nodes = pollPageSource(getTimeOutInNanoTime(defaultTimeOutInSeconds), (found) -> found.isEmpty() ? null : found);
+
+		if (nodes == null) {
+			throw new ElementsException("ERROR : Failed to " + operation + " within allotted time",
+					new ElementsException("ERROR : Element not found within allotted time"));
+		}
+
+		return reader.apply(nodes.get(0));
+	}
+
+
 	/**
 	 * Fetches the element defined by the {@code locatorList} using the default timeout.
 	 *
 	 * @see		#resolveLocators(long)
 	 */
 	private void resolveLocators() {
-		resolveLocators(System.nanoTime() + defaultTimeOutInSeconds * nanoSecond);
+		resolveLocators(getTimeOutInNanoTime(defaultTimeOutInSeconds));
+	}
+
+	/**
+	 * Fetches the whole list defined by the {@code locatorList}, for operations on the list rather than on its first
+	 * element. A list reused from the {@code ElementCache} is discarded and looked up again, as the cache only
+	 * validates its first element and cannot tell that the list has grown or shrunk since.
+	 *
+	 * @see		#resolveLocators(long)
+	 */
+	private void resolveListLocators() {
+		if (resolvedFromCache) {
+			elementList = null;
+			elementPath = null;
+			resolvedFromCache = false;
+		}
+
+		resolveLocators(getTimeOutInNanoTime(defaultTimeOutInSeconds), false);
 	}
 
 	/**
@@ -211,9 +415,24 @@ public class Elements implements Iterable<Elements> {
 	 * @see							#resolveLocators()
      */
 	private void resolveLocators(long timeOutInNanoTime) {
+		resolveLocators(timeOutInNanoTime, true);
+	}
+
+	/**
+	 * Fetches the element defined by the {@code locatorList} using the specified timeout.
+	 *
+	 * @param timeOutInNanoTime		{@code System.nanoTime()} which defines the time limit to resolve all locators
+	 * @param useCache				True to reuse elements from the {@code ElementCache}; the result is cached either way
+	 * @see							#resolveLocators(long)
+	 * @see							#resolveListLocators()
+     */
+	private void resolveLocators(long timeOutInNanoTime, boolean useCache) {
 
 		if (locatorList == null || locatorList.isEmpty()) {
 			throw new ElementsException("ERROR : resolveLocators() encountered a fatal error !");
+
+		} else if (locatorList.get(0) instanceof GetLocatorEntry) {
+			throw new ElementsException("ERROR : GetLocatorEntry without a preceding locator in resolveLocators()");
 		}
 
 		// Resolution should only happen once for each Elements instance
@@ -221,6 +440,27 @@ public class Elements implements Iterable<Elements> {
 			return;
 		}
 
+		// Elements resolved by a previous instance with the same locators are reused when still attached
+		if (useCache && ElementCache.isEnabled(driver)) {
+			String key = getLocatorPath();
+			List<WebElement> cachedResult = ElementCache.get(driver, key);
+
+			if (cachedResult != null) {
+				Log.step("Reusing cached {}", key);
+
+				elementList = cachedResult;
+				elementPath = key;
+				resolvedFromCache = true;
+				return;
+			}
+		}
+
+		// Cascading web lookups are resolved in a single round trip when the whole chain can be compiled
+		if (resolveLocatorsByScript(timeOutInNanoTime)) {
+			ElementCache.put(driver, elementPath, elementList);
+			return;
+		}
+
 		// The result is only committed after complete resolution
 		String tmpPath;
 		List<WebElement> tmpResult;
@@ -261,20 +501,242 @@ public class Elements implements Iterable<Elements> {
 
 				elementList = tmpResult;
 				elementPath = tmpPath;
+				ElementCache.put(driver, elementPath, elementList);
 				return;
 
 			} catch (Exception e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new ElementsException("ERROR : resolveLocators() was interrupted", e);
+				}
+
 				// Keep track of latest exception & Continue searching until timeout
 				lastException = e;
 			}
 
-		} while (!overrideTimeout && System.nanoTime() < timeOutInNanoTime);
+		} while (!isInsideWait() && System.nanoTime() < timeOutInNanoTime);
 
 		// Element cannot be found
 		throw new ElementsException("ERROR : Failed to resolveLocators() within allotted time", lastException);
 	}
 
 
+	/**
+	 * Builds the string representation of the {@code locatorList}, as used in logs and as the key of the
+	 * {@code ElementCache}.
+	 *
+	 * @return		The path of the element, e.g. {@code By.id: menu[2] + By.cssSelector: a}
+	 */
+	private String getLocatorPath() {
+		String path = null;
+
+		for (LocatorEntry entry : locatorList) {
+			if (entry instanceof GetLocatorEntry) {
+
+				if (path == null) {
+					throw new ElementsException("ERROR : GetLocatorEntry without a preceding locator in getLocatorPath()");
+				}
+
+				path = path + "[" + entry.getValue() + "]";
+			} else {
+				path = ( (path == null) ? "" : path + " + " ) + entry.getValue().toString();
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Executes an operation on the first resolved element. If the element was reused from the {@code ElementCache}
+	 * and has gone stale since, the locators are resolved again and the operation is retried once.
+	 *
+	 * @param operation		The operation to execute
+	 * @param <T>			Return type of the operation
+	 * @return				The result of the operation
+	 */
+	private <T> T execute(Function<WebElement, T> operation) {
+		try {
+			return operation.apply(elementList.get(0));
+
+		} catch (StaleElementReferenceException e) {
+
+			if (!resolvedFromCache) {
+				throw e;
+			}
+
+			discardCachedElements();
+			resolveLocators();
+			return operation.apply(elementList.get(0));
+		}
+	}
+
+	/**
+	 * Waits until the condition holds for the first resolved element. If the element was reused from the
+	 * {@code ElementCache} and has gone stale since, it is looked up again and the wait goes on with the new element,
+	 * rather than polling the stale element until the time limit.
+	 *
+	 * @param timeOutInNanoTime		{@code System.nanoTime()} which defines the time limit of the wait
+	 * @param condition				Builds the condition for an element
+	 * @param isIgnoringExceptions	True to ignore exceptions until the time limit, false to stop the wait on the first one
+	 * @throws NoSuchElementException	If the stale element can no longer be found
+	 */
+	private void waitUntil(long timeOutInNanoTime, Function<WebElement, ExpectedCondition<?>> condition, boolean isIgnoringExceptions) {
+		WebDriverWait wait = new WebDriverWait(driver, getRemainingTimeInSeconds(timeOutInNanoTime));
+
+		if (isIgnoringExceptions) {
+			wait.ignoring(Exception.class);
+		}
+
+		wait.until((ExpectedCondition<Object>) (webDriver) -> {
+			// A previous attempt discarded a stale element but could not find it again
+			if (elementList == null) {
+				resolveLocatorsOnce();
+			}
+
+			Object result = null;
+			StaleElementReferenceException staleException = null;
+
+			try {
+				result = condition.apply(elementList.get(0)).apply(webDriver);
+
+			} catch (StaleElementReferenceException e) {
+				staleException = e;
+			}
+
+			// Some conditions report a stale element as not met, so a cached element is checked whenever the condition fails
+			if ((result == null || Boolean.FALSE.equals(result)) && resolvedFromCache && isStale(elementList.get(0))) {
+				discardCachedElements();
+				resolveLocatorsOnce();
+				return condition.apply(elementList.get(0)).apply(webDriver);
+			}
+
+			if (staleException != null) {
+				throw staleException;
+			}
+
+			return result;
+		});
+	}
+
+	/**
+	 * Discards the elements reused from the {@code ElementCache} after they went stale, so that the next resolution
+	 * looks them up again.
+	 */
+	private void discardCachedElements() {
+		Log.step("Cached {} went stale, resolving again ...", elementPath);
+		ElementCache.remove(driver, elementPath);
+
+		elementList = null;
+		elementPath = null;
+		resolvedFromCache = false;
+	}
+
+	/**
+	 * Fetches the element defined by the {@code locatorList} with a single attempt, for lookups made by an attempt of
+	 * an enclosing wait.
+	 *
+	 * @throws NoSuchElementException	If the element cannot be found
+	 */
+	private void resolveLocatorsOnce() {
+		try {
+			resolveLocators(System.nanoTime());
+
+		} catch (ElementsException e) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw e;
+			}
+
+			throw new NoSuchElementException("Failed to resolve " + getLocatorPath() + " again", e);
+		}
+	}
+
+	private static boolean isStale(WebElement element) {
+		try {
+			element.getTagName();
+			return false;
+
+		} catch (StaleElementReferenceException e) {
+			return true;
+		}
+	}
+
+
+	/**
+	 * Fetches the element defined by the {@code locatorList} with a single {@code executeScript} call, rather than
+	 * one {@code findElements} call per locator. Only applies to web drivers and to cascading lookups in which every
+	 * locator can be compiled by {@code LocatorScript}.
+	 *
+	 * @param timeOutInNanoTime		{@code System.nanoTime()} which defines the time limit to resolve all locators
+	 * @return						True if the locators were resolved; false if hop-by-hop resolution must be used
+	 * @see							#resolveLocators(long)
+	 */
+	private boolean resolveLocatorsByScript(long timeOutInNanoTime) {
+
+		if (locatorList.size() < 2 || driver instanceof AndroidDriver || !(driver instanceof JavascriptExecutor)) {
+			return false;
+		}
+
+		List<List<String>> steps = new ArrayList<>();
+		String tmpPath = null;
+
+		for (LocatorEntry entry : locatorList) {
+
+			if (entry instanceof ByLocatorEntry) {
+
+				By locator = ((ByLocatorEntry) entry).getValue();
+				List<String> step = LocatorScript.compile(locator);
+
+				if (step == null) {
+					return false;
+				}
+
+				steps.add(step);
+				tmpPath = ( (tmpPath == null) ? "" : tmpPath + " + " ) + locator.toString();
+
+			} else if (entry instanceof GetLocatorEntry) {
+
+				int index = ((GetLocatorEntry) entry).getValue();
+				steps.add(LocatorScript.index(index));
+				tmpPath = tmpPath + "[" + index + "]";
+
+			} else {
+				return false;
+			}
+		}
+
+		Log.step("Looking for {} ...", tmpPath);
+
+		List<WebElement> result = null;
+		int attempt = 0;
+
+		do {
+			try {
+
+				PollingStrategy.pause(getPollingStrategy(), attempt++, timeOutInNanoTime);
+				result = LocatorScript.execute((JavascriptExecutor) driver, steps);
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ElementsException("ERROR : resolveLocators() was interrupted", e);
+
+			} catch (Exception e) {
+				// Script errors (e.g. unsupported XPath) are not retried here
+				Log.warn("Ignored :  {} {} - Resolving {} hop by hop", e.getClass(), e.getMessage(), tmpPath);
+				return false;
+			}
+
+		} while (!isInsideWait() && result.isEmpty() && System.nanoTime() < timeOutInNanoTime);
+
+		if (result.isEmpty()) {
+			throw new ElementsException("ERROR : Failed to resolveLocators() within allotted time",
+					new ElementsException("ERROR : Element not found within allotted time"));
+		}
+
+		elementList = result;
+		elementPath = tmpPath;
+		return true;
+	}
+
+
 	/**
 	 * Fetches the element defined by the {@code GetLocatorEntry}. The result is always non-empty and will throw
 	 * an exception if the element cannot be found.
@@ -288,7 +750,7 @@ public class Elements implements Iterable<Elements> {
 	 */
 	private List<WebElement> fetchElements(GetLocatorEntry locator, List<WebElement> elementList, String elementPath) {
 
-		Log.info("Looking for " + elementPath + " ...");
+		Log.step("Looking for {} ...", elementPath);
 
 		WebElement result = elementList.get(locator.getValue());
 
@@ -316,15 +778,16 @@ public class Elements implements Iterable<Elements> {
 	private List<WebElement> fetchElements(ByLocatorEntry locator, List<WebElement> elementList, String elementPath,
 			long timeOutInNanoTime) throws Exception {
 
-		Log.info("Looking for " + elementPath + " ...");
+		Log.step("Looking for {} ...", elementPath);
 
 		List<WebElement> result = null;
 		Exception lastException = null;
+		int attempt = 0;
 
 		do {
 			try {
 
-				Thread.sleep(100);
+				PollingStrategy.pause(getPollingStrategy(), attempt++, timeOutInNanoTime);
 
 				if (elementList != null && !elementList.isEmpty()) {
 					result = elementList.get(0).findElements(locator.getValue());
@@ -335,12 +798,20 @@ public class Elements implements Iterable<Elements> {
 
 				// Both elementList & driver is null, thus result will be null
 
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ElementsException("ERROR : fetchElements() was interrupted", e);
+
 			} catch (Exception e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new ElementsException("ERROR : fetchElements() was interrupted", e);
+				}
+
 				// Keep track of latest exception & continue searching until timeout
 				lastException = e;
 			}
 
-		} while (!overrideTimeout && (result == null || result.isEmpty()) && System.nanoTime() < timeOutInNanoTime);
+		} while (!isInsideWait() && (result == null || result.isEmpty()) && System.nanoTime() < timeOutInNanoTime);
 
 
 		if (result == null) {
@@ -357,13 +828,26 @@ public class Elements implements Iterable<Elements> {
 
 
 	/**
-	 * Applies a timeout in seconds to the current {@code System.nanoTime()}
+	 * Applies a timeout in seconds to the current {@code System.nanoTime()}. Inside a {@link #Wait(long, Callable)}
+	 * block, the result is capped by the deadline of the enclosing wait.
 	 *
 	 * @param timeOutInSeconds		The desired timeout in seconds
-	 * @return						{@code System.nanoTime()} + timeOutInSeconds
+	 * @return						{@code System.nanoTime()} + timeOutInSeconds, or the enclosing deadline if sooner
      */
-	private long getTimeOutInNanoTime(long timeOutInSeconds) {
-		return System.nanoTime() + timeOutInSeconds * nanoSecond;
+	private static long getTimeOutInNanoTime(long timeOutInSeconds) {
+		long timeOut = System.nanoTime() + timeOutInSeconds * nanoSecond;
+		WaitScope scope = currentWaitScope.get();
+
+		return (scope == null) ? timeOut : Math.min(timeOut, scope.getTimeOutInNanoTime());
+	}
+
+	/**
+	 * Determines whether the current thread is executing inside a {@link #Wait(long, Callable)} block.
+	 *
+	 * @return		True if fetches should execute only once and leave retries to the enclosing wait
+	 */
+	private static boolean isInsideWait() {
+		return currentWaitScope.get() != null;
 	}
 
 	/**
@@ -393,7 +877,10 @@ public class Elements implements Iterable<Elements> {
 		List<LocatorEntry> tmpLocatorList = new ArrayList<>(locatorList);
 		tmpLocatorList.add(locator);
 
-		return new Elements(driver, tmpLocatorList);
+		Elements next = new Elements(driver, tmpLocatorList).withPollingStrategy(pollingStrategy);
+		next.pageSourceMode = pageSourceMode;
+
+		return next;
 	}
 
 	/**
@@ -411,7 +898,10 @@ public class Elements implements Iterable<Elements> {
 		List<LocatorEntry> tmpLocatorList = new ArrayList<>(locatorList);
 		tmpLocatorList.add(locator);
 
-		return new Elements(driver, path, new ArrayList<WebElement>() {{ add(element); }}, tmpLocatorList);
+		Elements cached = new Elements(driver, path, new ArrayList<WebElement>() {{ add(element); }}, tmpLocatorList).withPollingStrategy(pollingStrategy);
+		cached.pageSourceMode = pageSourceMode;
+
+		return cached;
 	}
 
 
@@ -422,7 +912,7 @@ public class Elements implements Iterable<Elements> {
      */
 	public List<Elements> toList() {
 
-		resolveLocators();
+		resolveListLocators();
 
 		ArrayList<Elements> wrappedList = new ArrayList<>();
 
@@ -473,7 +963,7 @@ public class Elements implements Iterable<Elements> {
      */
 	public WebElement getRawElement() {
 		resolveLocators();
-		Log.info("Fetching WebElement from " + elementPath);
+		Log.step("Fetching WebElement from {}", elementPath);
 
 		return elementList.get(0);
 	}
@@ -484,14 +974,23 @@ public class Elements implements Iterable<Elements> {
 	 * @return		The number of elements in this list
      */
 	public int size() {
+
+		if (isPageSourceMode()) {
+			List<org.w3c.dom.Element> nodes = pollPageSource(getTimeOutInNanoTime(defaultTimeOutInSeconds), (found) -> found.isEmpty() ? null : found);
+			int size = (nodes == null) ? 0 : nodes.size();
+
+			Log.step("Size of {} from page source is : {}", compilePageSourceSteps(), size);
+			return size;
+		}
+
 		try {
-			resolveLocators();
-			Log.info("Size of " + elementPath + " is : " + elementList.size());
+			resolveListLocators();
+			Log.step("Size of {} is : {}", elementPath, elementList.size());
 			return elementList.size();
 
 		} catch (Exception e) {
 			Log.warn("Element cannot be found;  Size is 0");
-			Log.warn("Ignored :  " + e.getCause().getClass() + " " + e.getCause().getMessage());
+			Log.warn("Ignored :  {} {}", e.getCause().getClass(), e.getCause().getMessage());
 			return 0;
 		}
 	}
@@ -512,9 +1011,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public boolean isSelected() {
 		resolveLocators();
-		Log.info("Executing isSelected() on " + elementPath);
+		Log.step("Executing isSelected() on {}", elementPath);
 
-		return elementList.get(0).isSelected();
+		return execute(WebElement::isSelected);
 	}
 
 	/**
@@ -524,9 +1023,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public boolean isChecked() {
 		resolveLocators();
-		Log.info("Executing isChecked() on " + elementPath);
+		Log.step("Executing isChecked() on {}", elementPath);
 
-		return elementList.get(0).getAttribute("class").contains("checked") || elementList.get(0).getAttribute("checked") != null;
+		return execute((element) -> element.getAttribute("class").contains("checked") || element.getAttribute("checked") != null);
 	}
 
 	/**
@@ -538,9 +1037,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public boolean isEnabled() {
 		resolveLocators();
-		Log.info("Executing isEnabled() on " + elementPath);
+		Log.step("Executing isEnabled() on {}", elementPath);
 
-		return elementList.get(0).isEnabled();
+		return execute(WebElement::isEnabled);
 	}
 
 	/**
@@ -553,10 +1052,15 @@ public class Elements implements Iterable<Elements> {
 	 * @see			#waitForNotVisible(long)
      */
 	public boolean isDisplayed() {
+
+		if (isPageSourceMode()) {
+			return readFromPageSource("isDisplayed()", PageSourceSnapshot::isDisplayed);
+		}
+
 		resolveLocators();
-		Log.info("Executing isDisplayed() on " + elementPath);
+		Log.step("Executing isDisplayed() on {}", elementPath);
 
-		return elementList.get(0).isDisplayed();
+		return execute(WebElement::isDisplayed);
 	}
 
 	/**
@@ -568,10 +1072,15 @@ public class Elements implements Iterable<Elements> {
 	 * @see			#waitForTextVisible(String, long)
      */
 	public String getText() {
+
+		if (isPageSourceMode()) {
+			return readFromPageSource("getText()", (node) -> node.getAttribute("text"));
+		}
+
 		resolveLocators();
-		Log.info("Executing getText() on " + elementPath);
+		Log.step("Executing getText() on {}", elementPath);
 
-		return elementList.get(0).getText();
+		return execute(WebElement::getText);
 	}
 
 	/**
@@ -581,9 +1090,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public String getTagName() {
 		resolveLocators();
-		Log.info("Executing getTagName() on " + elementPath);
+		Log.step("Executing getTagName() on {}", elementPath);
 
-		return elementList.get(0).getTagName();
+		return execute(WebElement::getTagName);
 	}
 
 	/**
@@ -594,9 +1103,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public String getCssValue(String value) {
 		resolveLocators();
-		Log.info("Executing getCssValue(" + value + ") on " + elementPath);
+		Log.step("Executing getCssValue({}) on {}", value, elementPath);
 
-		return elementList.get(0).getCssValue(value);
+		return execute((element) -> element.getCssValue(value));
 	}
 
 	/**
@@ -606,10 +1115,15 @@ public class Elements implements Iterable<Elements> {
 	 * @return				The current value at the specified attribute, or null if the value is not set
      */
 	public String getAttribute(String attribute) {
+
+		if (isPageSourceMode()) {
+			return readFromPageSource("getAttribute(" + attribute + ")", (node) -> PageSourceSnapshot.getAttribute(node, attribute));
+		}
+
 		resolveLocators();
-		Log.info("Executing getAttribute(" + attribute + ") on " + elementPath);
+		Log.step("Executing getAttribute({}) on {}", attribute, elementPath);
 
-		return elementList.get(0).getAttribute(attribute);
+		return execute((element) -> element.getAttribute(attribute));
 	}
 
 	/**
@@ -619,9 +1133,9 @@ public class Elements implements Iterable<Elements> {
      */
 	public Point getLocation() {
 		resolveLocators();
-		Log.info("Executing getLocation() on " + elementPath);
+		Log.step("Executing getLocation() on {}", elementPath);
 
-		return elementList.get(0).getLocation();
+		return execute(WebElement::getLocation);
 	}
 
 	/**
@@ -631,9 +1145,133 @@ public class Elements implements Iterable<Elements> {
      */
 	public Dimension getElementSize() {
 		resolveLocators();
-		Log.info("Executing getElementSize() on " + elementPath);
+		Log.step("Executing getElementSize() on {}", elementPath);
+
+		return execute(WebElement::getSize);
+	}
+
+
+	/**
+	 * Reads the text, visibility and the given attributes of every element in this list at once. On web drivers
+	 * the states are read with a single {@code executeScript} call; on Android drivers, with a single
+	 * {@code getPageSource()} call. The default timeout is used to find the elements.
+	 *
+	 * <pre>{@code for (ElementState row : menuPage.menuRows().getStates("class")) {
+	 *     mAssert.assertTrue(row.isDisplayed());
+	 * }
+	 * }</pre>
+	 *
+	 * @param attributes	The names of the attributes to read
+	 * @return				A state per element, in the same order as {@link #toList()}
+	 */
+	public List<ElementState> getStates(String ... attributes) {
+
+		if (driver instanceof AndroidDriver) {
+			List<ElementState> states = getStatesFromPageSource(getTimeOutInNanoTime(defaultTimeOutInSeconds), attributes);
+
+			if (states != null) {
+				return states;
+			}
+		}
+
+		resolveLocators();
+		Log.step("Executing getStates() on {}", elementPath);
+
+		if (!(driver instanceof AndroidDriver) && driver instanceof JavascriptExecutor) {
+			try {
+				return ElementState.fromScript((JavascriptExecutor) driver, elementList, attributes);
+
+			} catch (Exception e) {
+				Log.warn("Ignored :  {} {} - Reading states one element at a time", e.getClass(), e.getMessage());
+			}
+		}
+
+		List<ElementState> states = new ArrayList<>();
+
+		for (WebElement element : elementList) {
+			states.add(ElementState.fromElement(element, attributes));
+		}
+
+		return states;
+	}
+
+	/**
+	 * Reads the states of this list from a page source snapshot, fetching a new snapshot until the elements are
+	 * found or the timeout is reached.
+	 *
+	 * @param timeOutInNanoTime		{@code System.nanoTime()} which defines the time limit to find the elements
+	 * @param attributes			The names of the attributes to read
+	 * @return						A state per element; or null if the locators cannot be evaluated on a snapshot
+	 * @see							#getStates(String...)
+	 */
+	private List<ElementState> getStatesFromPageSource(long timeOutInNanoTime, String ... attributes) {
+
+		List<Object> steps = compilePageSourceSteps();
+
+		if (steps == null) {
+			return null;
+		}
+
+		Log.step("Executing getStates() on {} from page source", steps);
+
+		List<org.w3c.dom.Element> nodes = null;
+		int attempt = 0;
+
+		do {
+			try {
+
+				PollingStrategy.pause(getPollingStrategy(), attempt++, timeOutInNanoTime);
+				nodes = PageSourceSnapshot.get(driver, (attempt == 1 && isPageSourceMode()) ? pageSourceMaxAgeInMillis : 0).evaluate(steps);
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ElementsException("ERROR : getStates() was interrupted", e);
+
+			} catch (Exception e) {
+				Log.warn("Ignored :  {} {} - Reading states from the device", e.getClass(), e.getMessage());
+				return null;
+			}
+
+		} while (!isInsideWait() && nodes.isEmpty() && System.nanoTime() < timeOutInNanoTime);
+
+		if (nodes.isEmpty()) {
+			throw new ElementsException("ERROR : Failed to getStates() within allotted time");
+		}
 
-		return elementList.get(0).getSize();
+		List<ElementState> states = new ArrayList<>();
+		nodes.forEach((node) -> states.add(PageSourceSnapshot.toState(node, attributes)));
+
+		return states;
+	}
+
+	/**
+	 * Compiles the {@code locatorList} into steps which can be evaluated on a {@code PageSourceSnapshot}.
+	 *
+	 * @return		XPath expressions and indexes; or null if any locator cannot be compiled
+	 */
+	private List<Object> compilePageSourceSteps() {
+		List<Object> steps = new ArrayList<>();
+
+		for (LocatorEntry entry : locatorList) {
+
+			if (entry instanceof ByLocatorEntry) {
+				String step = PageSourceSnapshot.compile(((ByLocatorEntry) entry).getValue(), !steps.isEmpty());
+
+				if (step == null) {
+					return null;
+				}
+
+				steps.add(step);
+
+			} else if (entry instanceof GetLocatorEntry) {
+				steps.add(((GetLocatorEntry) entry).getValue());
+
+			} else {
+				return null;
+			}
+		}
+
+		return steps;
 	}
 
 
@@ -647,8 +1285,9 @@ public class Elements implements Iterable<Elements> {
 		resolveLocators();
 
 		if (waitForEnabled()) {
-			Log.info("Executing clear() on " + elementPath);
-			elementList.get(0).clear();
+			Log.step("Executing clear() on {}", elementPath);
+			execute((element) -> { element.clear(); return null; });
+			PageSourceSnapshot.invalidate(driver);
 
 		} else {
 			throw new ElementsException("ERROR : Failed to clear() " + elementPath);
@@ -668,17 +1307,18 @@ public class Elements implements Iterable<Elements> {
 		resolveLocators();
 
 		if (waitForEnabled()) {
-			Log.info("Sending keys to " + elementPath);
-			elementList.get(0).sendKeys(keys);
+			Log.step("Sending keys to {}", elementPath);
+			execute((element) -> { element.sendKeys(keys); return null; });
+			PageSourceSnapshot.invalidate(driver);
 
 			if (driver instanceof AndroidDriver) {
 				try {
 
-					Log.info("sendKeys() successfully completed, dismissing keyboard");
+					Log.step("sendKeys() successfully completed, dismissing keyboard");
 					((AndroidDriver) driver).hideKeyboard();
 
 				} catch (Exception e) {
-					Log.warn("Ignored :  " + e.getClass() + " " + e.getMessage());
+					Log.warn("Ignored :  {} {}", e.getClass(), e.getMessage());
 				}
 			}
 
@@ -698,12 +1338,13 @@ public class Elements implements Iterable<Elements> {
 		if (waitForEnabled()) {
 
 			if (driver instanceof AndroidDriver) {
-				Log.info("Tapping " + elementPath);
-				new TouchAction((AndroidDriver) driver).tap(elementList.get(0)).perform();
+				Log.step("Tapping {}", elementPath);
+				execute((element) -> { new TouchAction((AndroidDriver) driver).tap(element).perform(); return null; });
+				PageSourceSnapshot.invalidate(driver);
 
 			} else {
-				Log.info("Clicking " + elementPath);
-				elementList.get(0).click();
+				Log.step("Clicking {}", elementPath);
+				execute((element) -> { element.click(); return null; });
 			}
 
 		} else {
@@ -719,24 +1360,25 @@ public class Elements implements Iterable<Elements> {
 	public void javascriptClick() {
 
 		resolveLocators();
-		Log.info("Executing javascriptClick() on " + elementPath);
+		Log.step("Executing javascriptClick() on {}", elementPath);
 
 		if (driver instanceof AndroidDriver) {
 			throw new ElementsException("ERROR : javascriptClick() cannot be performed on Android Element");
 		}
 
-		long timeout = System.nanoTime() + defaultTimeOutInSeconds * nanoSecond;
+		long timeout = getTimeOutInNanoTime(defaultTimeOutInSeconds);
+		int attempt = 0;
 
 		while (true) {
 			try {
 
-				Thread.sleep(100);
+				PollingStrategy.pause(getPollingStrategy(), attempt++, timeout);
 
 				if (System.nanoTime() > timeout) {
 					throw new TimeoutException();
 				}
 
-				JavascriptExecutor executor = (JavascriptExecutor) Driver.web;
+				JavascriptExecutor executor = (JavascriptExecutor) driver;
 				executor.executeScript("arguments[0].scrollIntoView();", elementList.get(0));
 				executor.executeScript("arguments[0].click();", elementList.get(0));
 
@@ -745,7 +1387,15 @@ public class Elements implements Iterable<Elements> {
 			} catch (TimeoutException e) {
 				throw new ElementsException("ERROR : Failed to javascriptClick() " + elementPath + " within allotted time");
 
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ElementsException("ERROR : javascriptClick() was interrupted", e);
+
 			} catch (Exception e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new ElementsException("ERROR : javascriptClick() was interrupted", e);
+				}
+
 				// Try to perform javascriptClick() again until default timeout
 			}
 		}
@@ -778,11 +1428,10 @@ public class Elements implements Iterable<Elements> {
 		long timeOut = getTimeOutInNanoTime(timeOutInSeconds);
 		resolveLocators(timeOut);
 
-		Log.info("Waiting for " + elementPath + " to become enabled ...");
+		Log.step("Waiting for {} to become enabled ...", elementPath);
 
 		try {
-			WebDriverWait wait = (WebDriverWait) new WebDriverWait(driver, getRemainingTimeInSeconds(timeOut)).ignoring(Exception.class);
-			wait.until(ExpectedConditions.elementToBeClickable(elementList.get(0)));
+			waitUntil(timeOut, ExpectedConditions::elementToBeClickable, true);
 			return true;
 
 		} catch (Exception e) {
@@ -819,11 +1468,10 @@ public class Elements implements Iterable<Elements> {
 		long timeOut = getTimeOutInNanoTime(timeOutInSeconds);
 		resolveLocators(timeOut);
 
-		Log.info("Waiting for " + elementPath + " to become selected ...");
+		Log.step("Waiting for {} to become selected ...", elementPath);
 
 		try {
-			WebDriverWait wait = (WebDriverWait) new WebDriverWait(driver, getRemainingTimeInSeconds(timeOut)).ignoring(Exception.class);
-			wait.until(ExpectedConditions.elementToBeSelected(elementList.get(0)));
+			waitUntil(timeOut, ExpectedConditions::elementToBeSelected, true);
 			return true;
 
 		} catch (Exception e) {
@@ -863,21 +1511,38 @@ public class Elements implements Iterable<Elements> {
 
 		long timeOut = getTimeOutInNanoTime(timeOutInSeconds);
 
+		if (isPageSourceMode()) {
+			Log.step("Waiting for {} to become visible in page source ...", compilePageSourceSteps());
+
+			try {
+				if (pollPageSource(timeOut, (nodes) -> (!nodes.isEmpty() && PageSourceSnapshot.isDisplayed(nodes.get(0))) ? true : null) != null) {
+					return true;
+				}
+
+			} catch (Exception e) {
+				Log.warn("WARNING : Element not visible - Failed to read page source");
+				Log.warn("Ignored :  {} {}", e.getClass(), e.getMessage());
+				return false;
+			}
+
+			Log.warn("WARNING : Element not visible within allotted time");
+			return false;
+		}
+
 		// If the element cannot be found, return false
 		try {
 			resolveLocators(timeOut);
 		} catch (Exception e) {
-			Log.info("Waiting for element to become visible ...");
+			Log.step("Waiting for element to become visible ...");
 			Log.warn("Failed to resolveLocators() within allotted time - Element not visible");
-			Log.warn("Ignored :  " + e.getCause().getClass() + " " + e.getCause().getMessage());
+			Log.warn("Ignored :  {} {}", e.getCause().getClass(), e.getCause().getMessage());
 			return false;
 		}
 
-		Log.info("Waiting for " + elementPath + " to become visible ...");
+		Log.step("Waiting for {} to become visible ...", elementPath);
 
 		try {
-			WebDriverWait wait = (WebDriverWait) new WebDriverWait(driver, getRemainingTimeInSeconds(timeOut)).ignoring(Exception.class);
-			wait.until(ExpectedConditions.visibilityOf(elementList.get(0)));
+			waitUntil(timeOut, ExpectedConditions::visibilityOf, true);
 			return true;
 
 		} catch (Exception e) {
@@ -916,21 +1581,38 @@ public class Elements implements Iterable<Elements> {
 
 		long timeOut = getTimeOutInNanoTime(timeOutInSeconds);
 
+		if (isPageSourceMode()) {
+			Log.step("Waiting for {} to disappear from page source ...", compilePageSourceSteps());
+
+			try {
+				if (pollPageSource(timeOut, (nodes) -> (nodes.isEmpty() || !PageSourceSnapshot.isDisplayed(nodes.get(0))) ? true : null) != null) {
+					return true;
+				}
+
+			} catch (Exception e) {
+				Log.warn("WARNING : Element did not disappear - Failed to read page source");
+				Log.warn("Ignored :  {} {}", e.getClass(), e.getMessage());
+				return false;
+			}
+
+			Log.warn("WARNING : Element did not disappear within allotted time");
+			return false;
+		}
+
 		// If the element cannot be found, return true
 		try {
 			resolveLocators(timeOut);
 		} catch (Exception e) {
-			Log.info("Waiting for element to disappear ...");
+			Log.step("Waiting for element to disappear ...");
 			Log.warn("Failed to resolveLocators() within allotted time - Element successfully disappeared");
-			Log.warn("Ignored :  " + e.getCause().getClass() + " " + e.getCause().getMessage());
+			Log.warn("Ignored :  {} {}", e.getCause().getClass(), e.getCause().getMessage());
 			return true;
 		}
 
-		Log.info("Waiting for " + elementPath + " to disappear ...");
+		Log.step("Waiting for {} to disappear ...", elementPath);
 
 		try {
-			WebDriverWait wait = new WebDriverWait(driver, getRemainingTimeInSeconds(timeOut));
-			wait.until(ExpectedConditions.not(ExpectedConditions.visibilityOf(elementList.get(0))));
+			waitUntil(timeOut, (element) -> ExpectedConditions.not(ExpectedConditions.visibilityOf(element)), false);
 			return true;
 
 		} catch (NoSuchElementException | StaleElementReferenceException e) {
@@ -968,13 +1650,30 @@ public class Elements implements Iterable<Elements> {
 	public boolean waitForTextVisible(String text, long timeOutInSeconds) {
 
 		long timeOut = getTimeOutInNanoTime(timeOutInSeconds);
+
+		if (isPageSourceMode()) {
+			Log.step("Waiting for {} to contain text '{}' in page source ...", compilePageSourceSteps(), text);
+
+			try {
+				if (pollPageSource(timeOut, (nodes) -> (!nodes.isEmpty() && nodes.get(0).getAttribute("text").contains(text)) ? true : null) != null) {
+					return true;
+				}
+
+			} catch (Exception e) {
+				Log.warn("WARNING : Text not found - Failed to read page source");
+				Log.warn("Ignored :  {} {}", e.getClass(), e.getMessage());
+				return false;
+			}
+
+			Log.warn("WARNING : Text not found within allotted time");
+			return false;
+		}
 		resolveLocators(timeOut);
 
-		Log.info("Waiting for " + elementPath + " to contain text '" + text + "' ...");
+		Log.step("Waiting for {} to contain text '{}' ...", elementPath, text);
 
 		try {
-			WebDriverWait wait = (WebDriverWait) new WebDriverWait(driver, getRemainingTimeInSeconds(timeOut)).ignoring(Exception.class);
-			wait.until(ExpectedConditions.textToBePresentInElement(elementList.get(0), text));
+			waitUntil(timeOut, (element) -> ExpectedConditions.textToBePresentInElement(element, text), true);
 			return true;
 
 		} catch (Exception e) {
@@ -985,6 +1684,38 @@ public class Elements implements Iterable<Elements> {
 
 
 
+	/**
+	 * The state of a {@link #Wait(long, Callable)} block on the current thread. A nested scope is created with a
+	 * deadline already capped by the enclosing scope, see {@link #getTimeOutInNanoTime(long)}.
+	 */
+	private static final class WaitScope {
+
+		private final long timeOutInNanoTime;
+		private int attempt = 0;
+		private long attemptStartedInNanoTime = System.nanoTime();
+
+		WaitScope(long timeOutInNanoTime) {
+			this.timeOutInNanoTime = timeOutInNanoTime;
+		}
+
+		long getTimeOutInNanoTime() {
+			return timeOutInNanoTime;
+		}
+
+		void startAttempt(int attempt) {
+			this.attempt = attempt;
+			this.attemptStartedInNanoTime = System.nanoTime();
+		}
+
+		boolean isRetry() {
+			return attempt > 0;
+		}
+
+		long getAttemptStartedInNanoTime() {
+			return attemptStartedInNanoTime;
+		}
+	}
+
 	private interface LocatorEntry<T> {
 		T getValue();
 	}
@@ -1017,7 +1748,7 @@ public class Elements implements Iterable<Elements> {
 		}
 	}
 
-	private class ElementsException extends RuntimeException {
+	private static class ElementsException extends RuntimeException {
 
 		public ElementsException(String message) {
 			super(message);
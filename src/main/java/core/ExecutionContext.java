@@ -0,0 +1,194 @@
+package core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.Log;
+
+/**
+ * <p>Describes the running test class : its number in the run, its class, the phase it is executing, its start time,
+ * its driver session and the metrics recorded while it runs.</p>
+ *
+ * <p>A context is created by {@link TestListener} when the class is set up, and bound to the threads running it.
+ * Threads started by the test inherit the context. So do pooled threads, but from whichever test created them, so
+ * tasks run on pooled threads must be wrapped by {@link #wrap(Callable)}, which also hands over the driver session,
+ * the configuration and the log file of the test.</p>
+ */
+public final class ExecutionContext {
+
+    public enum Phase {
+        baseSetUp, testSetUp, test, testTearDown, baseTearDown, unknown
+    }
+
+    private static final AtomicInteger testCounter = new AtomicInteger(0);
+    private static final Map<String, ExecutionContext> contextsByClass = new ConcurrentHashMap<>();
+    private static final InheritableThreadLocal<ExecutionContext> currentContext = new InheritableThreadLocal<>();
+
+    private final int testNumber;
+    private final String testClassName;
+    private final long startTimeInMillis;
+    private final Driver.Session session;
+    private final Map<String, LongAdder> metrics = new ConcurrentHashMap<>();
+
+    private volatile Phase phase = null;
+    private volatile long phaseStartInNanoTime = System.nanoTime();
+
+
+    private ExecutionContext(int testNumber, String testClassName, Driver.Session session) {
+        this.testNumber = testNumber;
+        this.testClassName = testClassName;
+        this.startTimeInMillis = System.currentTimeMillis();
+        this.session = session;
+    }
+
+
+    /**
+     * Returns the context bound to the current thread.
+     *
+     * @return      The current context; or null outside of a test
+     */
+    public static ExecutionContext current() {
+        return currentContext.get();
+    }
+
+    /**
+     * Returns the context of the test class, creating it with the next test number on the first call, and binds it
+     * to the current thread.
+     *
+     * @param testClassName     Fully qualified name of the test class
+     * @return                  The context of the test class
+     */
+    public static ExecutionContext enter(String testClassName) {
+        ExecutionContext context = contextsByClass.computeIfAbsent(testClassName,
+                (name) -> new ExecutionContext(testCounter.incrementAndGet(), name, Driver.capture()));
+
+        currentContext.set(context);
+        Log.setTestClass(testClassName);
+
+        return context;
+    }
+
+    /**
+     * Records the duration of the last phase, then discards the context of the test class.
+     *
+     * @param testClassName     Fully qualified name of the test class
+     * @return                  The discarded context; or null if the class has no context
+     */
+    public static ExecutionContext finish(String testClassName) {
+        ExecutionContext context = contextsByClass.remove(testClassName);
+
+        if (context != null) {
+            context.recordPhase();
+
+            if (currentContext.get() == context) {
+                currentContext.remove();
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * Wraps a task to run with the context, driver session, configuration and log file of the current thread, e.g. on
+     * a pooled thread. A pooled thread would otherwise keep the configuration of the thread which created it.
+     *
+     * @param task      The task to wrap
+     * @param <T>       Return type of the task
+     * @return          The wrapped task
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        ExecutionContext context = current();
+        Driver.Session session = Driver.capture();
+        AppConfig.Snapshot config = AppConfig.snapshot();
+
+        return () -> {
+            ExecutionContext previous = currentContext.get();
+            currentContext.set(context);
+            Log.setTestClass((context == null) ? null : context.testClassName);
+
+            try {
+                return AppConfig.runWith(config, () -> Driver.runWith(session, task));
+
+            } finally {
+                currentContext.set(previous);
+                Log.setTestClass((previous == null) ? null : previous.testClassName);
+            }
+        };
+    }
+
+
+    public int getTestNumber() { return testNumber; }
+
+    public String getTestClassName() { return testClassName; }
+
+    public long getStartTimeInMillis() { return startTimeInMillis; }
+
+    public Driver.Session getSession() { return session; }
+
+    public Phase getPhase() { return phase; }
+
+    /**
+     * Returns the name of the test and its phase, e.g. {@code examples.WebExample.baseSetUp}.
+     *
+     * @return      The test name
+     */
+    public String getTestName() {
+        if (phase == null) {
+            return testClassName;
+
+        } else if (phase == Phase.unknown) {
+            return testClassName + " - Configuration Type Unknown";
+        }
+
+        return testClassName + "." + phase;
+    }
+
+    /**
+     * Starts a new phase, recording the duration of the previous one as the {@code phase.<name>.millis} metric.
+     *
+     * @param newPhase      The phase about to be executed
+     */
+    public void setPhase(Phase newPhase) {
+        recordPhase();
+        phase = newPhase;
+    }
+
+    /**
+     * Adds a value to a metric of the test, e.g. a duration in milliseconds or a count.
+     *
+     * @param name      The metric name
+     * @param value     The value to add
+     */
+    public void addMetric(String name, long value) {
+        metrics.computeIfAbsent(name, (key) -> new LongAdder()).add(value);
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        metrics.forEach((name, value) -> values.put(name, value.sum()));
+
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public String toString() {
+        return "TEST # " + testNumber + " - " + testClassName + " " + getMetrics();
+    }
+
+
+    private void recordPhase() {
+        long now = System.nanoTime();
+
+        if (phase != null) {
+            addMetric("phase." + phase + ".millis", (now - phaseStartInNanoTime) / 1000000);
+        }
+
+        phaseStartInNanoTime = now;
+    }
+
+}
@@ -0,0 +1,224 @@
+package core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import utils.Log;
+import utils.mail.testDigestMail;
+
+/**
+ * <p>Collects the failures of a run and mails them as a digest at the end of the suite, instead of one mail per
+ * failure. Enabled by {@code failureDigest} in config.properties; like the mail of each failure, the digest is only
+ * sent when running in a build job, i.e. when {@code buildJobName} is set.</p>
+ *
+ * <p>Failures with the same signature are listed once, with the number of occurrences and the tests they occurred in,
+ * so that an environment outage is reported once rather than by every test. Each distinct failure shows thumbnails of
+ * its first occurrence, linked to the full size screenshots saved by {@link FailureReporter}. A digest larger than
+ * {@value #maxMessageBytes} bytes is split into several messages.</p>
+ */
+final class FailureDigest {
+
+    private static final int signatureFrames = 5;
+    private static final int signatureMessageLength = 200;
+    private static final int thumbnailWidth = 320;
+    private static final float thumbnailQuality = 0.7f;
+    private static final int maxMessageBytes = 8 * 1024 * 1024;
+
+    private static final AtomicInteger failureCounter = new AtomicInteger(0);
+    private static final Map<String, Failure> failuresBySignature = new LinkedHashMap<>();
+
+    private FailureDigest() {}
+
+
+    /**
+     * Returns the signature of an error : its type, its message with numbers masked, and its top stack frames. Errors
+     * from the same cause in different tests, e.g. the same timeout on a different element id, share a signature.
+     *
+     * @param error     The error of a failed test
+     * @return          The signature; {@code none} if there is no error
+     */
+    static String getSignature(Throwable error) {
+        if (error == null) {
+            return "none";
+        }
+
+        String message = String.valueOf(error.getMessage());
+        int end = message.indexOf('\n');
+        message = (end < 0) ? message : message.substring(0, end);
+        message = message.substring(0, Math.min(message.length(), signatureMessageLength)).replaceAll("\\d+", "#");
+
+        StringBuilder signature = new StringBuilder(error.getClass().getName()).append(": ").append(message);
+        StackTraceElement[] frames = error.getStackTrace();
+
+        for (int i = 0; i < Math.min(frames.length, signatureFrames); i++) {
+            signature.append('\n').append(frames[i].getClassName()).append('.').append(frames[i].getMethodName());
+        }
+
+        return signature.toString();
+    }
+
+    /**
+     * Adds a failure to the digest. Thumbnails are only created for the first failure of each signature. Failures
+     * outside of a build job are ignored.
+     *
+     * @param report    The report of the failure
+     */
+    static void add(FailureReport report) {
+        if (report.getConfig().getBuildJobName().isEmpty()) {
+            return;
+        }
+
+        synchronized (failuresBySignature) {
+            Failure failure = failuresBySignature.get(report.getSignature());
+
+            if (failure != null) {
+                failure.tests.add(report.getTestName());
+                return;
+            }
+        }
+
+        int id = failureCounter.incrementAndGet();
+        Failure failure = new Failure(id, report, createThumbnails(id, report));
+
+        synchronized (failuresBySignature) {
+            Failure previous = failuresBySignature.putIfAbsent(report.getSignature(), failure);
+
+            if (previous != null) {
+                previous.tests.add(report.getTestName());
+            }
+        }
+    }
+
+    /**
+     * Mails the failures collected so far and clears them, e.g. at the end of the suite. Nothing is mailed outside
+     * of a build job.
+     */
+    static void send() {
+        List<Failure> failures;
+
+        synchronized (failuresBySignature) {
+            failures = new ArrayList<>(failuresBySignature.values());
+            failuresBySignature.clear();
+        }
+
+        if (failures.isEmpty() || AppConfig.getBuildJobName().isEmpty()) {
+            return;
+        }
+
+        List<StringBuilder> contents = new ArrayList<>();
+        List<Map<String, byte[]>> thumbnails = new ArrayList<>();
+        int occurrences = 0;
+        long messageBytes = 0;
+
+        for (Failure failure : failures) {
+            String content = describe(failure);
+            // Attachments are base64 encoded, a third larger than the images
+            long failureBytes = content.length() + failure.thumbnails.values().stream().mapToLong((image) -> image.length * 4 / 3).sum();
+
+            if (contents.isEmpty() || messageBytes + failureBytes > maxMessageBytes) {
+                contents.add(new StringBuilder());
+                thumbnails.add(new LinkedHashMap<>());
+                messageBytes = 0;
+            }
+
+            contents.get(contents.size() - 1).append(content);
+            failure.thumbnails.forEach((name, image) -> thumbnails.get(thumbnails.size() - 1).put(name, image));
+            messageBytes += failureBytes;
+            occurrences += failure.tests.size();
+        }
+
+        String title = "Test Digest " + AppConfig.getBuildJobName() + " #" + AppConfig.getBuildJobNumber() + " : "
+                + occurrences + " failure(s), " + failures.size() + " distinct";
+
+        for (int part = 0; part < contents.size(); part++) {
+            String partTitle = (contents.size() == 1) ? title : title + " (" + (part + 1) + "/" + contents.size() + ")";
+            new testDigestMail(partTitle, contents.get(part).toString(), thumbnails.get(part)).send();
+        }
+
+        Log.info("Sent digest of {} failure(s), {} distinct, in {} message(s)", occurrences, failures.size(), contents.size());
+    }
+
+
+    private static String describe(Failure failure) {
+        String newLine = System.lineSeparator();
+        StringBuilder content = new StringBuilder();
+
+        content.append("<h3>").append(failure.tests.size()).append(" x ").append(escape(failure.summary)).append("</h3>").append(newLine)
+                .append("*TESTS :* ").append(escape(String.join(", ", failure.tests))).append(newLine);
+
+        failure.artifacts.forEach((name, path) -> {
+            String contentId = getContentId(failure.id, name);
+            content.append("<a href=\"").append(path.toAbsolutePath().normalize().toUri()).append("\">");
+
+            if (failure.thumbnails.containsKey(contentId)) {
+                content.append("<img src=\"cid:").append(contentId).append("\" alt=\"").append(name).append("\">");
+
+            } else {
+                content.append((name.equals("report")) ? "Full report" : name);
+            }
+
+            content.append("</a> ");
+        });
+
+        content.append(newLine)
+                .append(escape(failure.configuration))
+                .append(escape(failure.stackTrace))
+                .append("<hr>").append(newLine);
+
+        return content.toString();
+    }
+
+    private static Map<String, byte[]> createThumbnails(int id, FailureReport report) {
+        Map<String, byte[]> thumbnails = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Screenshot> screenshot : report.getScreenshots().entrySet()) {
+            try {
+                thumbnails.put(getContentId(id, screenshot.getKey()), ScreenshotService.encode(screenshot.getValue().getImage(), thumbnailWidth, Integer.MAX_VALUE, thumbnailQuality));
+
+            } catch (IOException | RuntimeException e) {
+                Log.warn("Unable to create {} thumbnail : {}", screenshot.getKey(), e.getMessage());
+            }
+        }
+
+        return thumbnails;
+    }
+
+    private static String getContentId(int id, String artifact) {
+        return "failure" + id + "-" + artifact;
+    }
+
+    private static String escape(String text) {
+        return String.valueOf(text).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+
+    /**
+     * A distinct failure. Keeps the thumbnails and the paths of the screenshots, rather than the screenshots.
+     */
+    private static final class Failure {
+
+        private final int id;
+        private final String summary;
+        private final String configuration;
+        private final String stackTrace;
+        private final Map<String, Path> artifacts;
+        private final Map<String, byte[]> thumbnails;
+        private final List<String> tests = new ArrayList<>();
+
+        private Failure(int id, FailureReport report, Map<String, byte[]> thumbnails) {
+            this.id = id;
+            this.summary = report.getSummary();
+            this.configuration = report.getConfiguration();
+            this.stackTrace = report.getStackTrace();
+            this.artifacts = FailureReporter.getArtifactPaths(report);
+            this.thumbnails = thumbnails;
+            this.tests.add(report.getTestName());
+        }
+    }
+
+}
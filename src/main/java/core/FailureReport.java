@@ -0,0 +1,67 @@
+package core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The artifacts of a test or configuration failure, captured on the test thread when the failure occurs : the
+ * screenshots of the drivers and everything needed to describe the test later, on another thread.</p>
+ */
+public final class FailureReport {
+
+    private final String summary;
+    private final String testName;
+    private final String configuration;
+    private final String stackTrace;
+    private final String signature;
+    private final long timeInMillis;
+    private final Map<String, Screenshot> screenshots;
+    private final AppConfig.Snapshot config;
+
+
+    public FailureReport(String summary, String testName, String configuration, String stackTrace, String signature,
+            Map<String, Screenshot> screenshots, AppConfig.Snapshot config) {
+        this.summary = summary;
+        this.testName = testName;
+        this.configuration = configuration;
+        this.stackTrace = stackTrace;
+        this.signature = signature;
+        this.timeInMillis = System.currentTimeMillis();
+        this.screenshots = Collections.unmodifiableMap(new LinkedHashMap<>(screenshots));
+        this.config = config;
+    }
+
+
+    public String getSummary() { return summary; }
+
+    public String getTestName() { return testName; }
+
+    public String getConfiguration() { return configuration; }
+
+    public String getStackTrace() { return stackTrace; }
+
+    /**
+     * @return      Identifies failures with the same cause, e.g. the same error in several tests
+     * @see         FailureDigest#getSignature(Throwable)
+     */
+    public String getSignature() { return signature; }
+
+    public long getTimeInMillis() { return timeInMillis; }
+
+    /**
+     * @return      The screenshots by driver, e.g. {@code mobile} and {@code web}
+     */
+    public Map<String, Screenshot> getScreenshots() { return screenshots; }
+
+    /**
+     * @return      The configuration of the failed test, which decides where the report is delivered
+     */
+    public AppConfig.Snapshot getConfig() { return config; }
+
+    @Override
+    public String toString() {
+        return summary + " (" + screenshots.size() + " screenshot(s))";
+    }
+
+}
@@ -0,0 +1,331 @@
+package core;
+
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.Log;
+import utils.mail.testFailMail;
+
+/**
+ * <p>Reports failures without holding up the tests. {@link #capture(String, ITestResult)} takes the screenshots on
+ * the test thread, while the driver still shows the failure, and leaves their encoding to {@link ScreenshotService};
+ * the report is then written to disk and delivered by email and webhook on a small pool of worker threads.</p>
+ *
+ * <p>The queue of reports is bounded : when it is full, the failing test delivers its report itself, which slows a
+ * burst of failures down instead of holding an unbounded number of screenshots in memory. Pending reports are
+ * delivered before the JVM exits, within {@value #flushTimeOutInSeconds} seconds.</p>
+ *
+ * <ul>
+ *     <li>Reports are always saved to {@code ../screenshots/}.</li>
+ *     <li>Reports are emailed to JIRA when running in a build job, i.e. when {@code buildJobName} is set; or
+ *     collected into a single {@link FailureDigest} when {@code failureDigest} is set.</li>
+ *     <li>Report summaries are posted to {@code failureWebhook} when it is set.</li>
+ * </ul>
+ */
+public final class FailureReporter {
+
+    private static final String reportDirectory = "../screenshots/";
+    private static final int workerCount = 2;
+    private static final int queueCapacity = 16;
+    private static final long flushTimeOutInSeconds = 120;
+    private static final int webhookTimeOutInMillis = 10000;
+
+    private static final List<FailureSink> sinks = new CopyOnWriteArrayList<>(Arrays.asList(
+            FailureReporter::saveToDisk, FailureReporter::sendMail, FailureReporter::postToWebhook));
+
+    private static final AtomicInteger workerCounter = new AtomicInteger(0);
+    private static final AtomicInteger pendingReports = new AtomicInteger(0);
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), FailureReporter::newWorker, FailureReporter::runOnCaller);
+
+    private static final LongAdder reports = new LongAdder();
+    private static final LongAdder deliveries = new LongAdder();
+    private static final LongAdder failedDeliveries = new LongAdder();
+    private static final LongAdder reportsRunOnCaller = new LongAdder();
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(flushTimeOutInSeconds), "FailureReporter-shutdown"));
+    }
+
+    private FailureReporter() {}
+
+
+    /**
+     * Captures the artifacts of a failure on the current thread : screenshots of its drivers, its test and
+     * configuration, and the stack trace.
+     *
+     * @param summary   The summary of the failure, e.g. {@code examples.WebExample.test - Test Failed}
+     * @param result    The result of the failed test or configuration
+     * @return          The report
+     */
+    public static FailureReport capture(String summary, ITestResult result) {
+        Map<String, Screenshot> screenshots = new LinkedHashMap<>();
+        addScreenshot(screenshots, ScreenshotService.capture(Driver.getMobile(), "mobile"));
+        addScreenshot(screenshots, ScreenshotService.capture(Driver.getWeb(), "web"));
+
+        String configuration;
+
+        try {
+            configuration = Log.getConfigurationSettings();
+
+        } catch (RuntimeException e) {
+            // e.g. a test outside of a package; the report is still worth sending
+            configuration = "";
+        }
+
+        return new FailureReport(summary, AppConfig.getTestName(), configuration, Log.stackTraceExtractor(result),
+                FailureDigest.getSignature(result.getThrowable()), screenshots, AppConfig.snapshot());
+    }
+
+    /**
+     * Queues a report for delivery to all sinks, with the configuration of the failed test. Returns immediately,
+     * unless the queue is full.
+     *
+     * @param report    The report to deliver
+     */
+    public static void report(FailureReport report) {
+        Callable<Void> delivery = ExecutionContext.wrap(() -> AppConfig.runWith(report.getConfig(), () -> deliver(report)));
+
+        reports.increment();
+        pendingReports.incrementAndGet();
+
+        executor.execute(() -> {
+            try {
+                delivery.call();
+
+            } catch (Exception e) {
+                Log.warn("Failed to deliver {} : {}", report, e.getMessage());
+
+            } finally {
+                synchronized (pendingReports) {
+                    pendingReports.decrementAndGet();
+                    pendingReports.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds a sink, e.g. a test management system, which receives every report from then on.
+     *
+     * @param sink      The sink
+     */
+    public static void addSink(FailureSink sink) {
+        sinks.add(sink);
+    }
+
+    /**
+     * Waits for the pending reports to be delivered.
+     *
+     * @param timeOutInSeconds  The maximum time to wait
+     * @return                  True if all reports were delivered; false if some are still pending
+     */
+    public static boolean flush(long timeOutInSeconds) {
+        long timeOutInNanoTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOutInSeconds);
+
+        synchronized (pendingReports) {
+            try {
+                while (pendingReports.get() > 0) {
+                    long remainingInMillis = TimeUnit.NANOSECONDS.toMillis(timeOutInNanoTime - System.nanoTime());
+
+                    if (remainingInMillis <= 0) {
+                        Log.warn("{} failure report(s) still pending after {} seconds", pendingReports.get(), timeOutInSeconds);
+                        return false;
+                    }
+
+                    pendingReports.wait(remainingInMillis);
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a summary of all reports for logs, e.g. at the end of a run.
+     *
+     * @return      The number of reports, deliveries, failed deliveries and reports delivered by the failing test
+     */
+    public static String getStatistics() {
+        return "FailureReporter : " + reports.sum() + " reports, " + deliveries.sum() + " deliveries, "
+                + failedDeliveries.sum() + " failed, " + reportsRunOnCaller.sum() + " run on test thread";
+    }
+
+
+    private static Void deliver(FailureReport report) {
+        for (FailureSink sink : sinks) {
+            try {
+                sink.deliver(report);
+                deliveries.increment();
+
+            } catch (Exception e) {
+                failedDeliveries.increment();
+                Log.warn("Failed to deliver {} : {}", report, e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    private static void addScreenshot(Map<String, Screenshot> screenshots, Screenshot screenshot) {
+        if (screenshot != null) {
+            screenshots.put(screenshot.getName(), screenshot);
+        }
+    }
+
+
+    /**
+     * Returns the files a report is saved to : its screenshots by driver, and the text of the report as {@code report}.
+     * A screenshot identical to one saved before refers to the earlier file.
+     *
+     * @param report    The report
+     * @return          The paths, by artifact
+     */
+    static Map<String, Path> getArtifactPaths(FailureReport report) {
+        String prefix = getFilePrefix(report);
+        Map<String, Path> paths = new LinkedHashMap<>();
+
+        report.getScreenshots().forEach((name, screenshot) -> paths.put(name,
+                (screenshot.getFile() != null) ? screenshot.getFile() : Paths.get(reportDirectory, prefix + "-" + name + ".jpg")));
+        paths.put("report", Paths.get(reportDirectory, prefix + ".txt"));
+
+        return paths;
+    }
+
+    private static String getFilePrefix(FailureReport report) {
+        String testName = String.valueOf(report.getTestName());
+        String time = new SimpleDateFormat("HH.mm.ss.SSS").format(new Date(report.getTimeInMillis()));
+
+        return time + "-" + testName.substring(testName.lastIndexOf('.') + 1) + "-Failed";
+    }
+
+    private static void saveToDisk(FailureReport report) throws IOException {
+        String prefix = getFilePrefix(report);
+
+        for (Screenshot screenshot : report.getScreenshots().values()) {
+            ScreenshotService.save(screenshot, prefix + "-" + screenshot.getName());
+        }
+
+        Path file = Files.createDirectories(Paths.get(reportDirectory)).resolve(prefix + ".txt");
+        Files.write(file, (report.getSummary() + System.lineSeparator() + report.getConfiguration()
+                + report.getStackTrace()).getBytes(StandardCharsets.UTF_8));
+
+        Log.info("Failure Report Saved  -  " + file.getFileName());
+    }
+
+    private static void sendMail(FailureReport report) {
+        if (report.getConfig().isFailureDigestEnabled()) {
+            FailureDigest.add(report);
+
+        } else if (!report.getConfig().getBuildJobName().isEmpty()) {
+            Map<String, byte[]> screenshots = new LinkedHashMap<>();
+
+            for (Screenshot screenshot : report.getScreenshots().values()) {
+                try {
+                    screenshots.put(screenshot.getName(), screenshot.getImage());
+
+                } catch (RuntimeException e) {
+                    Log.warn("Unable to attach {} : {}", screenshot, e.getMessage());
+                }
+            }
+
+            new testFailMail(report.getSummary(), report.getConfiguration(), report.getStackTrace(), screenshots).send();
+        }
+    }
+
+    /**
+     * Posts the summary of the report as JSON. Screenshots are not sent; they are saved to disk and emailed.
+     */
+    private static void postToWebhook(FailureReport report) throws IOException {
+        if (report.getConfig().getFailureWebhook().isEmpty()) {
+            return;
+        }
+
+        byte[] body = ("{\"summary\":" + toJson(report.getSummary()) + ",\"test\":" + toJson(report.getTestName())
+                + ",\"time\":" + report.getTimeInMillis() + ",\"screenshots\":" + report.getScreenshots().size() + "}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(report.getConfig().getFailureWebhook()).openConnection();
+
+        try {
+            connection.setConnectTimeout(webhookTimeOutInMillis);
+            connection.setReadTimeout(webhookTimeOutInMillis);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body);
+            }
+
+            if (connection.getResponseCode() >= 300) {
+                throw new IOException("webhook responded " + connection.getResponseCode());
+            }
+
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String toJson(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        StringBuilder json = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+
+            } else {
+                json.append(c);
+            }
+        }
+
+        return json.append('"').toString();
+    }
+
+
+    private static Thread newWorker(Runnable task) {
+        Thread worker = new Thread(task, "FailureReporter-" + workerCounter.incrementAndGet());
+        worker.setDaemon(true);
+
+        return worker;
+    }
+
+    private static void runOnCaller(Runnable task, ThreadPoolExecutor executor) {
+        reportsRunOnCaller.increment();
+        task.run();
+    }
+
+}
@@ -0,0 +1,17 @@
+package core;
+
+/**
+ * Delivers failure reports, e.g. by email. Called by {@link FailureReporter} on its worker threads.
+ */
+@FunctionalInterface
+public interface FailureSink {
+
+    /**
+     * Delivers a report. Called concurrently for different reports.
+     *
+     * @param report    The report to deliver
+     * @throws Exception    If the report could not be delivered; other sinks still receive it
+     */
+    void deliver(FailureReport report) throws Exception;
+
+}
@@ -0,0 +1,211 @@
+package core;
+
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * <p>Indexes the groups of test methods as bitsets, so that methods can be selected by group expressions without
+ * reading their annotations again.</p>
+ *
+ * <p>Each group name is given a bit the first time it is seen, and the groups of each method are indexed once per run.
+ * An expression is compiled once into a predicate over these bitsets, e.g.</p>
+ *
+ * <pre>{@code mobileSmoke & !flaky}
+ * {@code (webSmoke | mobileSmoke) & !(logout | onlineOrdering)}</pre>
+ *
+ * <p>{@code !} binds tighter than {@code &}, which binds tighter than {@code |}. Group names are any characters other
+ * than whitespace, operators and parentheses.</p>
+ */
+final class GroupIndex {
+
+    private static final Map<String, Integer> bitsByGroup = new HashMap<>();
+    private static final Map<Object, BitSet> groupsByMethod = new ConcurrentHashMap<>();
+
+    private GroupIndex() {}
+
+
+    /**
+     * Returns the groups of the test method, indexing them on first use. Only the groups of the method's own
+     * {@code @Test} annotation are indexed, as the group filter has always done; groups declared on the class are not.
+     *
+     * @param method    The test method
+     * @return          The bits of its groups; must not be modified
+     */
+    static BitSet getGroups(ITestNGMethod method) {
+        Method reflectedMethod = method.getConstructorOrMethod().getMethod();
+
+        // The reflected method identifies a test method across the TestNG instances of its class
+        Object key = (reflectedMethod == null) ? method : reflectedMethod;
+
+        return groupsByMethod.computeIfAbsent(key, (ignored) -> {
+            Test annotation = (reflectedMethod == null) ? null : reflectedMethod.getAnnotation(Test.class);
+
+            return (annotation == null) ? new BitSet() : getBits(Arrays.asList(annotation.groups()));
+        });
+    }
+
+    /**
+     * Returns the bits of the groups, giving a bit to each group seen for the first time.
+     *
+     * @param groups    The group names
+     * @return          The bits of the groups
+     */
+    static BitSet getBits(Collection<String> groups) {
+        BitSet bits = new BitSet();
+        groups.forEach((group) -> bits.set(getBit(group)));
+
+        return bits;
+    }
+
+    /**
+     * Compiles a predicate matching methods in all of the groups, like the {@code group} filter has always done.
+     *
+     * @param groups    The group names; if empty, all methods match
+     * @return          The predicate
+     */
+    static Predicate<BitSet> allOf(Collection<String> groups) {
+        BitSet required = getBits(groups);
+
+        return (methodGroups) -> {
+            BitSet missing = (BitSet) required.clone();
+            missing.andNot(methodGroups);
+
+            return missing.isEmpty();
+        };
+    }
+
+    /**
+     * Compiles a group expression.
+     *
+     * @param expression    The expression, e.g. {@code mobileSmoke & !flaky}
+     * @return              The predicate
+     * @throws RuntimeException     If the expression is invalid
+     */
+    static Predicate<BitSet> compile(String expression) {
+        return new ExpressionParser(expression).parse();
+    }
+
+
+    private static synchronized int getBit(String group) {
+        return bitsByGroup.computeIfAbsent(group.trim(), (name) -> bitsByGroup.size());
+    }
+
+
+    /**
+     * A recursive descent parser : {@code or := and ('|' and)*}, {@code and := not ('&' not)*},
+     * {@code not := '!' not | '(' or ')' | group}.
+     */
+    private static final class ExpressionParser {
+
+        private final String expression;
+        private final List<String> tokens = new ArrayList<>();
+        private int position = 0;
+
+        private ExpressionParser(String expression) {
+            this.expression = expression;
+            StringBuilder name = new StringBuilder();
+
+            for (char c : expression.toCharArray()) {
+                if (Character.isWhitespace(c) || "&|!()".indexOf(c) >= 0) {
+                    if (name.length() > 0) {
+                        tokens.add(name.toString());
+                        name.setLength(0);
+                    }
+
+                    if (!Character.isWhitespace(c)) {
+                        tokens.add(String.valueOf(c));
+                    }
+
+                } else {
+                    name.append(c);
+                }
+            }
+
+            if (name.length() > 0) {
+                tokens.add(name.toString());
+            }
+        }
+
+        private Predicate<BitSet> parse() {
+            Predicate<BitSet> predicate = parseOr();
+
+            if (position < tokens.size()) {
+                throw error("unexpected '" + tokens.get(position) + "'");
+            }
+
+            return predicate;
+        }
+
+        private Predicate<BitSet> parseOr() {
+            Predicate<BitSet> predicate = parseAnd();
+
+            while (accept("|")) {
+                predicate = predicate.or(parseAnd());
+            }
+
+            return predicate;
+        }
+
+        private Predicate<BitSet> parseAnd() {
+            Predicate<BitSet> predicate = parseNot();
+
+            while (accept("&")) {
+                predicate = predicate.and(parseNot());
+            }
+
+            return predicate;
+        }
+
+        private Predicate<BitSet> parseNot() {
+            if (accept("!")) {
+                return parseNot().negate();
+
+            } else if (accept("(")) {
+                Predicate<BitSet> predicate = parseOr();
+
+                if (!accept(")")) {
+                    throw error("missing ')'");
+                }
+
+                return predicate;
+            }
+
+            if (position >= tokens.size()) {
+                throw error("missing group name");
+
+            } else if (tokens.get(position).length() == 1 && "&|!()".contains(tokens.get(position))) {
+                throw error("unexpected '" + tokens.get(position) + "'");
+            }
+
+            int bit = getBit(tokens.get(position++));
+
+            return (methodGroups) -> methodGroups.get(bit);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private RuntimeException error(String reason) {
+            return new RuntimeException("Invalid group expression '" + expression + "' : " + reason + " !");
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+package core;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import utils.Log;
+
+/**
+ * <p>Finds the classes affected by a change : the changed classes, and all classes which depend on them directly or
+ * transitively, e.g. the tests using a changed page object.</p>
+ *
+ * <p>Dependencies are read from the constant pools of the compiled classes, which reference every class a class uses.
+ * The classes are read from the directories the test classes and this framework were loaded from. Nested classes are
+ * attributed to their top level class, i.e. to their source file.</p>
+ *
+ * <p>Compile-time constants, such as the group names of {@code TestGroup}, are inlined by the compiler and leave no
+ * reference behind. A change to a constant only affects the classes which are otherwise found to depend on it.</p>
+ */
+final class ImpactAnalysis {
+
+    private static final List<String> sourceRoots = Arrays.asList("src/main/java/", "src/testscripts/java/");
+    // Files outside of these, e.g. IDE settings, cannot affect a test run
+    private static final List<String> buildPaths = Arrays.asList("src/", "resources/", "gradle/", "build.gradle", "settings.gradle");
+
+    private static final Pattern typeDescriptor = Pattern.compile("L([\\w/$]+);");
+    private static final long gitTimeOutInSeconds = 60;
+
+    private ImpactAnalysis() {}
+
+
+    /**
+     * Returns the files changed, from {@code changedFiles} if set, otherwise from {@code git diff} of the
+     * {@code changedSince} range.
+     *
+     * @return      Paths relative to the project directory; or null if no change is configured
+     * @throws RuntimeException     If the git diff fails
+     */
+    static List<String> getChangedFiles() {
+        if (!AppConfig.getChangedFiles().isEmpty()) {
+            return Arrays.stream(AppConfig.getChangedFiles().split(","))
+                    .map(String::trim).filter((path) -> !path.isEmpty()).collect(Collectors.toList());
+
+        } else if (!AppConfig.getChangedSince().isEmpty()) {
+            return gitDiff(AppConfig.getChangedSince());
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the top level classes affected by changes to the files.
+     *
+     * @param changedFiles  Paths relative to the project directory
+     * @param testClasses   The test classes, whose class directories are analysed along with the framework's
+     * @return              Fully qualified names of the affected classes; or null if a change can affect all classes,
+     *                      e.g. a change to a resource or to the build, or if the compiled classes cannot be found
+     */
+    static Set<String> getAffectedClasses(List<String> changedFiles, Collection<Class<?>> testClasses) {
+        Set<String> changedClasses = new HashSet<>();
+
+        for (String file : changedFiles) {
+            String path = file.replace('\\', '/');
+            String className = toClassName(path);
+
+            if (className != null) {
+                changedClasses.add(className);
+
+            } else if (buildPaths.stream().anyMatch(path::startsWith) && !path.endsWith(".DS_Store")) {
+                Log.info("{} can affect all tests", path);
+                return null;
+            }
+        }
+
+        Set<Path> classDirectories = new HashSet<>();
+        testClasses.forEach((testClass) -> addClassDirectory(classDirectories, testClass));
+        addClassDirectory(classDirectories, ImpactAnalysis.class);
+
+        Map<String, Set<String>> dependents = getDependents(classDirectories);
+
+        if (dependents == null) {
+            return null;
+        }
+
+        Set<String> affected = new HashSet<>(changedClasses);
+        Deque<String> pending = new ArrayDeque<>(changedClasses);
+
+        while (!pending.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(pending.pop(), new HashSet<>())) {
+                if (affected.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+
+        return affected;
+    }
+
+    /**
+     * @param path      A path relative to the project directory
+     * @return          The class defined by a source file; or null if the path is not a Java source
+     */
+    static String toClassName(String path) {
+        for (String root : sourceRoots) {
+            if (path.startsWith(root) && path.endsWith(".java")) {
+                return path.substring(root.length(), path.length() - ".java".length()).replace('/', '.');
+            }
+        }
+
+        return null;
+    }
+
+    static String getTopLevelClassName(String className) {
+        int nested = className.indexOf('$');
+        return (nested < 0) ? className : className.substring(0, nested);
+    }
+
+
+    private static void addClassDirectory(Set<Path> classDirectories, Class<?> loadedClass) {
+        try {
+            CodeSource source = loadedClass.getProtectionDomain().getCodeSource();
+            Path location = (source == null) ? null : Paths.get(source.getLocation().toURI());
+
+            if (location != null && Files.isDirectory(location)) {
+                classDirectories.add(location);
+            }
+
+        } catch (URISyntaxException | SecurityException e) {
+            Log.warn("Cannot locate classes of {} : {}", loadedClass.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the compiled classes of the directories, i.e. of this project rather than its libraries.
+     *
+     * @return      The classes depending on each class, by top level class name; or null if no class was found
+     */
+    private static Map<String, Set<String>> getDependents(Set<Path> classDirectories) {
+        long start = System.currentTimeMillis();
+        Map<String, Set<String>> dependents = new HashMap<>();
+        int classCount = 0;
+
+        for (Path directory : classDirectories) {
+            List<Path> classFiles;
+
+            try (Stream<Path> files = Files.walk(directory)) {
+                classFiles = files.filter((file) -> file.toString().endsWith(".class")).collect(Collectors.toList());
+
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to list classes of " + directory + " !", e);
+            }
+
+            for (Path classFile : classFiles) {
+                String className = getTopLevelClassName(directory.relativize(classFile).toString()
+                        .replace(File.separatorChar, '/').replaceAll("\\.class$", "").replace('/', '.'));
+
+                for (String dependency : readReferencedClasses(classFile)) {
+                    if (!dependency.equals(className)) {
+                        dependents.computeIfAbsent(dependency, (key) -> new HashSet<>()).add(className);
+                    }
+                }
+
+                classCount++;
+            }
+        }
+
+        if (classCount == 0) {
+            Log.warn("No compiled classes found in {}, cannot analyse dependencies", classDirectories);
+            return null;
+        }
+
+        Log.info("Read dependencies of {} classes in {} ms", classCount, System.currentTimeMillis() - start);
+
+        return dependents;
+    }
+
+    /**
+     * Returns the classes referenced by the constant pool of a class file : class entries, and the types of field
+     * and method descriptors and signatures.
+     */
+    private static Set<String> readReferencedClasses(Path classFile) {
+        Set<String> referenced = new HashSet<>();
+
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(classFile))) {
+            if (input.readInt() != 0xCAFEBABE) {
+                throw new IOException("not a class file");
+            }
+
+            input.readUnsignedShort();
+            input.readUnsignedShort();
+
+            int count = input.readUnsignedShort();
+            String[] utf8 = new String[count];
+            List<Integer> classNameIndexes = new ArrayList<>();
+
+            for (int i = 1; i < count; i++) {
+                int tag = input.readUnsignedByte();
+
+                switch (tag) {
+                    case 1:     // Utf8
+                        utf8[i] = input.readUTF();
+                        break;
+                    case 7:     // Class
+                        classNameIndexes.add(input.readUnsignedShort());
+                        break;
+                    case 8: case 16: case 19: case 20:     // String, MethodType, Module, Package
+                        input.readUnsignedShort();
+                        break;
+                    case 15:    // MethodHandle
+                        input.readUnsignedByte();
+                        input.readUnsignedShort();
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        input.readInt();
+                        break;
+                    case 5: case 6:     // Long and Double take two entries
+                        input.readLong();
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("unknown constant pool tag " + tag);
+                }
+            }
+
+            for (int index : classNameIndexes) {
+                String name = utf8[index];
+
+                if (name != null && !name.startsWith("[")) {
+                    referenced.add(getTopLevelClassName(name.replace('/', '.')));
+                }
+            }
+
+            for (String value : utf8) {
+                if (value != null && value.indexOf(';') > 0) {
+                    Matcher matcher = typeDescriptor.matcher(value);
+
+                    while (matcher.find()) {
+                        referenced.add(getTopLevelClassName(matcher.group(1).replace('/', '.')));
+                    }
+                }
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read class file " + classFile + " !", e);
+        }
+
+        return referenced;
+    }
+
+    private static List<String> gitDiff(String range) {
+        try {
+            Process git = new ProcessBuilder("git", "diff", "--name-only", range).redirectErrorStream(true).start();
+            List<String> output;
+
+            try (InputStream stream = git.getInputStream();
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                output = reader.lines().map(String::trim).filter((line) -> !line.isEmpty()).collect(Collectors.toList());
+            }
+
+            if (!git.waitFor(gitTimeOutInSeconds, TimeUnit.SECONDS)) {
+                git.destroyForcibly();
+                throw new RuntimeException("git diff " + range + " timed out !");
+
+            } else if (git.exitValue() != 0) {
+                throw new RuntimeException("git diff " + range + " failed : " + String.join(" ", output));
+            }
+
+            return output;
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to run git diff " + range + " !", e);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running git diff " + range + " !", e);
+        }
+    }
+
+}
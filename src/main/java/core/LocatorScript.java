@@ -0,0 +1,127 @@
+package core;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Compiles a chain of web locators into a single {@code executeScript} call. A chain such as
+ * {@code By.id("menu") -> [2] -> By.cssSelector("a")} is otherwise resolved with one {@code findElements} request to
+ * the Selenium server per hop.</p>
+ *
+ * <p>Each step is evaluated against the first element of the previous step, which mirrors the hop-by-hop resolution
+ * in {@link Elements}. Locators which cannot be expressed as CSS or XPath (e.g. link text) are not compiled, and the
+ * caller is expected to fall back to hop-by-hop resolution.</p>
+ */
+final class LocatorScript {
+
+    private static final String CSS = "css";
+    private static final String XPATH = "xpath";
+    private static final String INDEX = "index";
+
+    private static final String SCRIPT =
+            "var steps = arguments[0], context = [document];" +
+            "for (var i = 0; i < steps.length; i++) {" +
+            "  var type = steps[i][0], value = steps[i][1], root = context[0], next = [];" +
+            "  if (type === 'index') {" +
+            "    var element = context[parseInt(value, 10)];" +
+            "    if (element) { next.push(element); }" +
+            "  } else if (type === 'xpath') {" +
+            "    var nodes = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "    for (var j = 0; j < nodes.snapshotLength; j++) {" +
+            "      if (nodes.snapshotItem(j).nodeType === 1) { next.push(nodes.snapshotItem(j)); }" +
+            "    }" +
+            "  } else {" +
+            "    next = Array.prototype.slice.call(root.querySelectorAll(value));" +
+            "  }" +
+            "  if (next.length === 0) { return null; }" +
+            "  context = next;" +
+            "}" +
+            "return context;";
+
+    private LocatorScript() {}
+
+
+    /**
+     * Compiles a locator into a script step.
+     *
+     * @param locator   A By which identifies an element on the page
+     * @return          The step as a [type, value] pair; or null if the locator cannot be compiled
+     */
+    static List<String> compile(By locator) {
+
+        // By does not expose its value; its string representation is "By.<type>: <value>"
+        String representation = locator.toString();
+        int separator = representation.indexOf(": ");
+
+        if (separator < 0) {
+            return null;
+        }
+
+        String value = representation.substring(separator + 2);
+
+        if (locator instanceof By.ByCssSelector) {
+            return Arrays.asList(CSS, value);
+
+        } else if (locator instanceof By.ByXPath) {
+            return Arrays.asList(XPATH, value);
+
+        } else if (locator instanceof By.ById) {
+            return Arrays.asList(CSS, "*[id=\"" + escape(value) + "\"]");
+
+        } else if (locator instanceof By.ByName) {
+            return Arrays.asList(CSS, "*[name=\"" + escape(value) + "\"]");
+
+        } else if (locator instanceof By.ByClassName) {
+            return Arrays.asList(CSS, "*[class~=\"" + escape(value) + "\"]");
+
+        } else if (locator instanceof By.ByTagName && value.matches("[\\w-]+")) {
+            return Arrays.asList(CSS, value);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a script step selecting a single element from the previous step.
+     *
+     * @param index     Index of the element in the previous step
+     * @return          The step as a [type, value] pair
+     */
+    static List<String> index(int index) {
+        return Arrays.asList(INDEX, String.valueOf(index));
+    }
+
+
+    /**
+     * Resolves the compiled steps in a single round trip.
+     *
+     * @param executor  The driver executing the script
+     * @param steps     Steps created by {@link #compile(By)} and {@link #index(int)}
+     * @return          The elements matched by the last step; or an empty list if any step matched nothing
+     */
+    static List<WebElement> execute(JavascriptExecutor executor, List<List<String>> steps) {
+
+        Object result = executor.executeScript(SCRIPT, steps);
+        List<WebElement> elements = new ArrayList<>();
+
+        if (result instanceof List) {
+            for (Object element : (List<?>) result) {
+                if (element instanceof WebElement) {
+                    elements.add((WebElement) element);
+                }
+            }
+        }
+
+        return elements;
+    }
+
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
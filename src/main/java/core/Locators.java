@@ -0,0 +1,190 @@
+package core;
+
+import org.openqa.selenium.By;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * <p>Registry of interned locators for page objects. Page object methods are called for every interaction, and
+ * would otherwise build a new XPath string and a new {@code By} on each call.</p>
+ *
+ * <p>XPath locators are validated once, when first registered, so a malformed expression fails immediately instead
+ * of timing out in a wait. Parameterised locators quote their arguments as XPath literals, which also handles text
+ * containing apostrophes:</p>
+ *
+ * <pre>{@code By locator = Locators.xpath("//android.widget.Button[@text = %s]", buttonText);}</pre>
+ *
+ * <p>Compiled {@code XPathExpression}s are cached per thread for evaluation against page source snapshots, as
+ * compiled expressions are not thread-safe.</p>
+ */
+public final class Locators {
+
+    // Parameterised locators built from free text could grow without bound
+    private static final int maxInternedLocators = 10000;
+
+    private static final Map<String, By> internedLocators = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<String, XPathExpression>> compiledExpressions = ThreadLocal.withInitial(HashMap::new);
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private Locators() {}
+
+
+    /**
+     * Returns the interned {@code By.xpath} locator for the expression.
+     *
+     * @param expression    An XPath expression
+     * @return              The interned locator
+     * @throws IllegalArgumentException     If the expression is not a valid XPath expression
+     */
+    public static By xpath(String expression) {
+        return intern("xpath:" + expression, () -> {
+            compile(expression);
+            return By.xpath(expression);
+        });
+    }
+
+    /**
+     * Returns the interned {@code By.xpath} locator for a parameterised expression. Each {@code %s} placeholder is
+     * replaced by the matching argument, quoted as an XPath string literal. Only {@code %s} is a placeholder : any
+     * other {@code %}, e.g. in {@code contains(@style, '100%')}, is kept as is.
+     *
+     * @param template      An XPath expression with {@code %s} placeholders
+     * @param arguments     The values of the placeholders
+     * @return              The interned locator
+     * @throws IllegalArgumentException     If the number of placeholders and arguments differ, or the resulting
+     *                                      expression is not a valid XPath expression
+     */
+    public static By xpath(String template, Object ... arguments) {
+        StringBuilder expression = new StringBuilder();
+        int start = 0;
+        int argument = 0;
+
+        for (int placeholder = template.indexOf("%s"); placeholder >= 0; placeholder = template.indexOf("%s", start)) {
+            if (argument == arguments.length) {
+                throw new IllegalArgumentException("Missing argument for placeholder " + (argument + 1) + " of " + template);
+            }
+
+            expression.append(template, start, placeholder).append(literal(String.valueOf(arguments[argument++])));
+            start = placeholder + 2;
+        }
+
+        if (argument < arguments.length) {
+            throw new IllegalArgumentException("Expected " + argument + " argument(s) for " + template + ", got " + arguments.length);
+        }
+
+        return xpath(expression.append(template.substring(start)).toString());
+    }
+
+    /**
+     * Returns the interned {@code By.id} locator for the id.
+     *
+     * @param id    The id, or the full resource id of an Android element
+     * @return      The interned locator
+     */
+    public static By id(String id) {
+        return intern("id:" + id, () -> By.id(id));
+    }
+
+    /**
+     * Returns the interned {@code By.cssSelector} locator for the selector.
+     *
+     * @param selector  A CSS selector
+     * @return          The interned locator
+     */
+    public static By cssSelector(String selector) {
+        return intern("css:" + selector, () -> By.cssSelector(selector));
+    }
+
+
+    /**
+     * Quotes a value as an XPath 1.0 string literal. Values containing both quote types are split with
+     * {@code concat()}.
+     *
+     * @param value     The raw value
+     * @return          An XPath string literal
+     */
+    public static String literal(String value) {
+
+        if (!value.contains("'")) {
+            return "'" + value + "'";
+
+        } else if (!value.contains("\"")) {
+            return "\"" + value + "\"";
+        }
+
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+
+    /**
+     * Returns the compiled form of an XPath expression, cached for the current thread.
+     *
+     * @param expression    An XPath expression
+     * @return              The compiled expression; must not be shared with other threads
+     * @throws IllegalArgumentException     If the expression is not a valid XPath expression
+     */
+    static XPathExpression compile(String expression) {
+        Map<String, XPathExpression> cache = compiledExpressions.get();
+        XPathExpression compiled = cache.get(expression);
+
+        if (compiled == null) {
+            try {
+                compiled = XPathFactory.newInstance().newXPath().compile(expression);
+
+            } catch (XPathExpressionException e) {
+                throw new IllegalArgumentException("Invalid XPath : " + expression, e);
+            }
+
+            if (cache.size() < maxInternedLocators) {
+                cache.put(expression, compiled);
+            }
+        }
+
+        return compiled;
+    }
+
+
+    /**
+     * Returns a summary of the registry for logs, e.g. at the end of a run.
+     *
+     * @return      The number of interned locators, cache hits and cache misses
+     */
+    public static String getStatistics() {
+        return "Locators : " + internedLocators.size() + " interned, " + hits.sum() + " hits, " + misses.sum() + " misses";
+    }
+
+
+    private interface LocatorSupplier {
+        By create();
+    }
+
+    private static By intern(String key, LocatorSupplier supplier) {
+        By locator = internedLocators.get(key);
+
+        if (locator != null) {
+            hits.increment();
+            return locator;
+        }
+
+        misses.increment();
+        locator = supplier.create();
+
+        if (internedLocators.size() < maxInternedLocators) {
+            By existing = internedLocators.putIfAbsent(key, locator);
+            return (existing == null) ? locator : existing;
+        }
+
+        return locator;
+    }
+
+}
@@ -0,0 +1,239 @@
+package core;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * <p>A parsed copy of the Android UI hierarchy, fetched with a single {@code getPageSource()} call. Locators are
+ * evaluated against the copy instead of issuing one UIAutomator query per element.</p>
+ *
+ * <p>Steps are either XPath expressions, compiled from a {@code By} by {@link #compile(By, boolean)}, or
+ * {@code Integer} indexes selecting one node of the previous step. Each step is evaluated against the first node of
+ * the previous step, which mirrors the hop-by-hop resolution in {@link Elements}.</p>
+ *
+ * <p>The latest snapshot of each driver is cached, and reused by {@link #get(WebDriver, long)} while it is younger than
+ * the requested age. Interactions with the device must call {@link #invalidate(WebDriver)}.</p>
+ */
+final class PageSourceSnapshot {
+
+    // Appium attribute names which differ from the page source attribute names
+    private static final Map<String, String> attributeAliases = new HashMap<String, String>() {{
+        put("name", "content-desc");
+        put("contentDescription", "content-desc");
+        put("resourceId", "resource-id");
+        put("className", "class");
+        put("longClickable", "long-clickable");
+    }};
+
+    private static final Map<WebDriver, PageSourceSnapshot> latestSnapshots = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Document document;
+    private final long createdInNanoTime;
+
+
+    private PageSourceSnapshot(Document document) {
+        this.document = document;
+        this.createdInNanoTime = System.nanoTime();
+    }
+
+
+    /**
+     * Returns the latest snapshot of the driver if it is younger than the given age, otherwise fetches a new one.
+     *
+     * @param driver            An instance of an AndroidDriver
+     * @param maxAgeInMillis    The maximum age of a reused snapshot; 0 to always fetch a new snapshot
+     * @return                  A snapshot of the device's UI hierarchy
+     */
+    static PageSourceSnapshot get(WebDriver driver, long maxAgeInMillis) {
+        return get(driver, maxAgeInMillis, Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns the latest snapshot of the driver if it is younger than the given age and was taken after the given
+     * time, otherwise fetches a new one.
+     *
+     * @param driver                An instance of an AndroidDriver
+     * @param maxAgeInMillis        The maximum age of a reused snapshot; 0 to always fetch a new snapshot
+     * @param notBeforeInNanoTime   {@code System.nanoTime()} before which a snapshot is not reused, e.g. the start of
+     *                              a {@code Wait} attempt
+     * @return                      A snapshot of the device's UI hierarchy
+     */
+    static PageSourceSnapshot get(WebDriver driver, long maxAgeInMillis, long notBeforeInNanoTime) {
+        PageSourceSnapshot snapshot = latestSnapshots.get(driver);
+
+        if (snapshot != null && System.nanoTime() - snapshot.createdInNanoTime < TimeUnit.MILLISECONDS.toNanos(maxAgeInMillis)
+                && snapshot.createdInNanoTime - notBeforeInNanoTime >= 0) {
+            return snapshot;
+        }
+
+        snapshot = fetch(driver);
+        latestSnapshots.put(driver, snapshot);
+
+        return snapshot;
+    }
+
+    /**
+     * Discards the latest snapshot of the driver. Must be called after any interaction which can change the screen.
+     *
+     * @param driver    An instance of an AndroidDriver
+     */
+    static void invalidate(WebDriver driver) {
+        latestSnapshots.remove(driver);
+    }
+
+
+    /**
+     * Fetches and parses the current UI hierarchy of the device.
+     *
+     * @param driver    An instance of an AndroidDriver
+     * @return          A new snapshot
+     */
+    static PageSourceSnapshot fetch(WebDriver driver) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            Document document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(driver.getPageSource())));
+
+            return new PageSourceSnapshot(document);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse page source !", e);
+        }
+    }
+
+
+    /**
+     * Compiles an Android locator into an XPath step.
+     *
+     * @param locator       A By which identifies an element on the screen
+     * @param isRelative    True if the step is evaluated against a previous step rather than the whole screen
+     * @return              An XPath expression; or null if the locator cannot be compiled
+     */
+    static String compile(By locator, boolean isRelative) {
+
+        // By does not expose its value; its string representation is "By.<type>: <value>"
+        String representation = locator.toString();
+        int separator = representation.indexOf(": ");
+
+        if (separator < 0) {
+            return null;
+        }
+
+        String value = representation.substring(separator + 2);
+        String axis = (isRelative) ? ".//*" : "//*";
+
+        if (locator instanceof By.ByXPath) {
+            return value;
+
+        } else if (locator instanceof By.ById && value.contains(":id/")) {
+            return axis + "[@resource-id=" + Locators.literal(value) + "]";
+
+        } else if (locator instanceof By.ByClassName) {
+            return axis + "[@class=" + Locators.literal(value) + "]";
+
+        } else if (locator instanceof By.ByName) {
+            return axis + "[@content-desc=" + Locators.literal(value) + " or @text=" + Locators.literal(value) + "]";
+        }
+
+        return null;
+    }
+
+    /**
+     * Evaluates the steps against this snapshot.
+     *
+     * @param steps     XPath expressions and indexes
+     * @return          The nodes matched by the last step; or an empty list if any step matched nothing
+     */
+    List<Element> evaluate(List<Object> steps) {
+
+        List<Node> context = new ArrayList<Node>() {{ add(document); }};
+
+        for (Object step : steps) {
+            List<Node> next = new ArrayList<>();
+
+            if (step instanceof Integer) {
+                int index = (Integer) step;
+
+                if (index < context.size()) {
+                    next.add(context.get(index));
+                }
+
+            } else {
+                NodeList nodes = evaluate((String) step, context.get(0));
+
+                for (int i = 0; i < nodes.getLength(); i++) {
+                    if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                        next.add(nodes.item(i));
+                    }
+                }
+            }
+
+            if (next.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            context = next;
+        }
+
+        List<Element> result = new ArrayList<>();
+        context.forEach((node) -> result.add((Element) node));
+
+        return result;
+    }
+
+    private NodeList evaluate(String expression, Node context) {
+        try {
+            return (NodeList) Locators.compile(expression).evaluate(context, XPathConstants.NODESET);
+
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath : " + expression, e);
+        }
+    }
+
+
+    /**
+     * Reads the state of a node of this snapshot.
+     *
+     * @param node          A node returned by {@link #evaluate(List)}
+     * @param attributes    The attributes to read, using Appium or page source names
+     * @return              The state of the node
+     */
+    static ElementState toState(Element node, String... attributes) {
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (String attribute : attributes) {
+            values.put(attribute, getAttribute(node, attribute));
+        }
+
+        return new ElementState(node.getAttribute("text"), isDisplayed(node), values);
+    }
+
+    static String getAttribute(Element node, String attribute) {
+        String name = attributeAliases.getOrDefault(attribute, attribute);
+        return (node.hasAttribute(name)) ? node.getAttribute(name) : null;
+    }
+
+    static boolean isDisplayed(Element node) {
+        // Older UIAutomator dumps only contain displayed nodes and have no "displayed" attribute
+        return !"false".equals(node.getAttribute("displayed"));
+    }
+
+}
@@ -0,0 +1,85 @@
+package core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Determines the pause between two attempts of a polling loop, such as an element fetch or an
+ * {@link Elements#Wait(long, java.util.concurrent.Callable)} block.</p>
+ *
+ * <p>The first attempt of a loop always executes immediately, and a pause never exceeds the time remaining before
+ * the loop's deadline. A strategy only decides the pause for subsequent attempts.</p>
+ *
+ * @see Elements#setDefaultPollingStrategy(PollingStrategy)
+ * @see Elements#withPollingStrategy(PollingStrategy)
+ */
+@FunctionalInterface
+public interface PollingStrategy {
+
+    /**
+     * Returns the pause before the given attempt.
+     *
+     * @param attempt   The attempt about to be executed; starts at 1 for the first retry
+     * @return          The pause in milliseconds
+     */
+    long getDelayInMillis(int attempt);
+
+
+    /**
+     * A strategy which pauses for the same interval before every retry.
+     *
+     * @param intervalInMillis      The pause in milliseconds
+     * @return                      A fixed interval strategy
+     */
+    static PollingStrategy fixed(long intervalInMillis) {
+        return (attempt) -> intervalInMillis;
+    }
+
+    /**
+     * A strategy which multiplies the pause after every retry, up to a maximum. A random jitter is applied to avoid
+     * concurrent tests polling a remote server in lockstep.
+     *
+     * @param initialInMillis       The pause before the first retry
+     * @param multiplier            The factor applied to the pause after every retry
+     * @param maxInMillis           The upper bound of the pause, before jitter
+     * @param jitter                The fraction of the pause to randomly add or remove, between 0 and 1
+     * @return                      An exponential backoff strategy
+     */
+    static PollingStrategy backoff(long initialInMillis, double multiplier, long maxInMillis, double jitter) {
+        return (attempt) -> {
+            double delay = Math.min(maxInMillis, initialInMillis * Math.pow(multiplier, attempt - 1));
+            double spread = delay * jitter;
+
+            if (spread > 0) {
+                delay += ThreadLocalRandom.current().nextDouble(-spread, spread);
+            }
+
+            return Math.max(0, Math.round(delay));
+        };
+    }
+
+
+    /**
+     * Pauses the current thread before the given attempt. The first attempt (0) is never delayed, and the pause is
+     * capped by the time remaining until the deadline.
+     *
+     * @param strategy              The strategy deciding the pause
+     * @param attempt               The attempt about to be executed; 0 for the first attempt
+     * @param timeOutInNanoTime     {@code System.nanoTime()} which defines the deadline of the loop
+     * @throws InterruptedException If the thread is interrupted while sleeping
+     */
+    static void pause(PollingStrategy strategy, int attempt, long timeOutInNanoTime) throws InterruptedException {
+
+        if (attempt < 1) {
+            return;
+        }
+
+        long remainingInMillis = TimeUnit.NANOSECONDS.toMillis(timeOutInNanoTime - System.nanoTime());
+        long delay = Math.min(strategy.getDelayInMillis(attempt), remainingInMillis);
+
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object, e.g. for {@link Database#stream(String, RowMapper, Object...)}.
+ *
+ * <pre>{@code RowMapper<Order> mapper = (row) -> new Order(row.getLong("id"), row.getString("status"));}</pre>
+ *
+ * @param <T>   The mapped type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row. Must not move the cursor.
+     *
+     * @param row       The result set, positioned on the row to map
+     * @return          The mapped object
+     * @throws SQLException     If a column cannot be read
+     */
+    T map(ResultSet row) throws SQLException;
+
+
+    /**
+     * A mapper which reads a single column as a string; null for SQL NULL.
+     *
+     * @param column    The column label
+     * @return          A single column mapper
+     */
+    static RowMapper<String> column(String column) {
+        return (row) -> row.getString(column);
+    }
+
+}
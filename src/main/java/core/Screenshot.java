@@ -0,0 +1,76 @@
+package core;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>A screenshot taken by {@link ScreenshotService}. It is taken once and encoded in the background, and the result is
+ * shared by the logs, the failure reports and the mails.</p>
+ */
+public final class Screenshot {
+
+    private final String name;
+    private final long takenInMillis;
+    private final CompletableFuture<byte[]> image = new CompletableFuture<>();
+
+    private volatile String sha256 = null;
+    private volatile Path file = null;
+
+
+    Screenshot(String name) {
+        this.name = name;
+        this.takenInMillis = System.currentTimeMillis();
+    }
+
+
+    public String getName() { return name; }
+
+    public long getTakenInMillis() { return takenInMillis; }
+
+    /**
+     * Returns the encoded screenshot, waiting for the encoding to finish.
+     *
+     * @return      The JPEG image
+     * @throws RuntimeException     If the screenshot could not be encoded
+     */
+    public byte[] getImage() {
+        return image.join();
+    }
+
+    /**
+     * @return      The SHA-256 of the screenshot as taken, identical for identical frames; waits for the encoding
+     */
+    public String getSha256() {
+        image.join();
+        return sha256;
+    }
+
+    /**
+     * @return      The file the screenshot was saved to; or null if not saved yet
+     */
+    public Path getFile() { return file; }
+
+    @Override
+    public String toString() {
+        return "Screenshot " + name;
+    }
+
+
+    CompletableFuture<byte[]> whenEncoded() {
+        return image;
+    }
+
+    void complete(String sha256, byte[] encoded) {
+        this.sha256 = sha256;
+        image.complete(encoded);
+    }
+
+    void fail(Throwable error) {
+        image.completeExceptionally(error);
+    }
+
+    void setFile(Path file) {
+        this.file = file;
+    }
+
+}
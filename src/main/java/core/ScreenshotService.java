@@ -0,0 +1,332 @@
+package core;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import utils.Log;
+
+/**
+ * <p>Takes screenshots once, as bytes, and encodes them on a worker thread : they are downscaled to fit within
+ * {@code screenshotMaxWidth} x {@code screenshotMaxHeight} and re-encoded as JPEG of {@code screenshotQuality}. A
+ * full size tablet PNG of several MB usually becomes a JPEG of a few hundred KB.</p>
+ *
+ * <p>Identical frames, e.g. the same error screen captured by several tests, are recognised by the SHA-256 of the
+ * screenshot : they are encoded and saved once, and later copies refer to the first file.</p>
+ *
+ * <p>Screenshots saved asynchronously are written before the JVM exits, within {@value #flushTimeOutInSeconds}
+ * seconds.</p>
+ */
+public final class ScreenshotService {
+
+    private static final String screenshotDirectory = "../screenshots/";
+    private static final int workerCount = 2;
+    private static final int queueCapacity = 32;
+    private static final int maxCachedImages = 16;
+    private static final long flushTimeOutInSeconds = 60;
+
+    private static final AtomicInteger workerCounter = new AtomicInteger(0);
+    private static final AtomicInteger pendingSaves = new AtomicInteger(0);
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), ScreenshotService::newWorker, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    // Recent encodings by SHA-256, including those in progress, so that identical frames are only encoded once
+    private static final Map<String, CompletableFuture<byte[]>> encodedImages = new LinkedHashMap<String, CompletableFuture<byte[]>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+            return size() > maxCachedImages;
+        }
+    };
+    private static final Map<String, Path> savedFiles = new ConcurrentHashMap<>();
+
+    private static final LongAdder captured = new LongAdder();
+    private static final LongAdder duplicates = new LongAdder();
+    private static final LongAdder capturedBytes = new LongAdder();
+    private static final LongAdder encodedBytes = new LongAdder();
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(flushTimeOutInSeconds), "ScreenshotService-shutdown"));
+    }
+
+    private ScreenshotService() {}
+
+
+    /**
+     * Takes a screenshot on the current thread, and queues it for encoding.
+     *
+     * @param driver    The driver to take the screenshot with
+     * @param name      The name of the screenshot, e.g. {@code mobile}
+     * @return          The screenshot, being encoded; or null if the driver is null or could not take it
+     */
+    public static Screenshot capture(WebDriver driver, String name) {
+        if (driver == null) {
+            return null;
+        }
+
+        byte[] png;
+
+        try {
+            png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+
+        } catch (WebDriverException | ClassCastException e) {
+            Log.warn("Unable to take {} screenshot : {}", name, e.getMessage());
+            return null;
+        }
+
+        AppConfig.Snapshot config = AppConfig.snapshot();
+        Screenshot screenshot = new Screenshot(name);
+        captured.increment();
+        capturedBytes.add(png.length);
+
+        executor.execute(() -> {
+            try {
+                String sha256 = toSha256(png);
+                CompletableFuture<byte[]> encoding = new CompletableFuture<>();
+                CompletableFuture<byte[]> previous;
+
+                synchronized (encodedImages) {
+                    previous = encodedImages.putIfAbsent(sha256, encoding);
+                }
+
+                byte[] encoded;
+
+                if (previous != null) {
+                    duplicates.increment();
+                    encoded = previous.join();
+
+                } else {
+                    try {
+                        encoded = encode(png, config.getScreenshotMaxWidth(), config.getScreenshotMaxHeight(), config.getScreenshotQuality() / 100f);
+                        encoding.complete(encoded);
+                        encodedBytes.add(encoded.length);
+
+                    } catch (IOException | RuntimeException e) {
+                        encoding.completeExceptionally(e);
+
+                        synchronized (encodedImages) {
+                            encodedImages.remove(sha256, encoding);
+                        }
+
+                        throw e;
+                    }
+                }
+
+                screenshot.complete(sha256, encoded);
+
+            } catch (Exception e) {
+                screenshot.fail(e);
+            }
+        });
+
+        return screenshot;
+    }
+
+    /**
+     * Saves a screenshot to the screenshots directory, once its encoding is done. A frame identical to a screenshot
+     * saved before is not saved again.
+     *
+     * @param screenshot    The screenshot
+     * @param fileName      The file name, without extension
+     * @return              The file of the screenshot
+     * @throws IOException  If the screenshot could not be encoded or written
+     */
+    public static Path save(Screenshot screenshot, String fileName) throws IOException {
+        byte[] image;
+
+        try {
+            image = screenshot.getImage();
+
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to encode " + screenshot, e.getCause());
+        }
+
+        Path file = savedFiles.get(screenshot.getSha256());
+
+        if (file == null || !Files.exists(file)) {
+            file = Files.createDirectories(Paths.get(screenshotDirectory)).resolve(fileName + ".jpg");
+            Files.write(file, image);
+            savedFiles.put(screenshot.getSha256(), file);
+
+        } else {
+            Log.info("{} is identical to {}", fileName, file.getFileName());
+        }
+
+        screenshot.setFile(file);
+        return file;
+    }
+
+    /**
+     * Saves a screenshot on a worker thread, and logs the outcome to the log file of the calling test.
+     *
+     * @see #save(Screenshot, String)
+     * @see #flush(long)
+     */
+    public static CompletableFuture<Path> saveAsync(Screenshot screenshot, String fileName) {
+        Callable<Path> task = ExecutionContext.wrap(() -> {
+            try {
+                Path file = save(screenshot, fileName);
+                Log.info("Screenshot Saved  -  " + file.getFileName());
+
+                return file;
+
+            } catch (IOException | RuntimeException e) {
+                Log.error("Unable to save screenshot " + fileName + " : " + e.getMessage());
+                throw e;
+            }
+        });
+
+        pendingSaves.incrementAndGet();
+
+        // Chained to the encoding rather than waiting for it, so that a worker never waits for a queued encoding
+        return screenshot.whenEncoded().handleAsync((image, error) -> {
+            try {
+                return task.call();
+
+            } catch (Exception e) {
+                throw new RuntimeException("Unable to save " + fileName + " !", e);
+
+            } finally {
+                synchronized (pendingSaves) {
+                    pendingSaves.decrementAndGet();
+                    pendingSaves.notifyAll();
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for the screenshots saved asynchronously to be written.
+     *
+     * @param timeOutInSeconds  The maximum time to wait
+     * @return                  True if all screenshots were written; false if some are still pending
+     */
+    public static boolean flush(long timeOutInSeconds) {
+        long timeOutInNanoTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOutInSeconds);
+
+        synchronized (pendingSaves) {
+            try {
+                while (pendingSaves.get() > 0) {
+                    long remainingInMillis = TimeUnit.NANOSECONDS.toMillis(timeOutInNanoTime - System.nanoTime());
+
+                    if (remainingInMillis <= 0) {
+                        Log.warn("{} screenshot(s) still pending after {} seconds", pendingSaves.get(), timeOutInSeconds);
+                        return false;
+                    }
+
+                    pendingSaves.wait(remainingInMillis);
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Downscales an image to fit within the dimensions, and encodes it as JPEG.
+     *
+     * @param image         The image, in any format ImageIO reads
+     * @param maxWidth      The maximum width in pixels
+     * @param maxHeight     The maximum height in pixels
+     * @param quality       The JPEG quality, from 0 to 1
+     * @return              The JPEG image
+     * @throws IOException  If the image cannot be decoded
+     */
+    public static byte[] encode(byte[] image, int maxWidth, int maxHeight, float quality) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(image));
+
+        if (source == null) {
+            throw new IOException("not an image");
+        }
+
+        double scale = Math.min(1, Math.min((double) maxWidth / source.getWidth(), (double) maxHeight / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEG has no alpha channel
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam parameters = writer.getDefaultWriteParam();
+        parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parameters.setCompressionQuality(quality);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(target, null, null), parameters);
+
+        } finally {
+            writer.dispose();
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns a summary of all screenshots for logs, e.g. at the end of a run.
+     *
+     * @return      The number of screenshots and identical frames, the size taken and the size of the distinct encoded frames
+     */
+    public static String getStatistics() {
+        return "ScreenshotService : " + captured.sum() + " screenshots, " + duplicates.sum() + " identical, "
+                + capturedBytes.sum() / 1024 + " KB taken, " + encodedBytes.sum() / 1024 + " KB encoded";
+    }
+
+
+    private static String toSha256(byte[] data) throws NoSuchAlgorithmException {
+        StringBuilder hex = new StringBuilder();
+
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    private static Thread newWorker(Runnable task) {
+        Thread worker = new Thread(task, "ScreenshotService-" + workerCounter.incrementAndGet());
+        worker.setDaemon(true);
+
+        return worker;
+    }
+
+}
@@ -0,0 +1,226 @@
+package core;
+
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.Log;
+
+/**
+ * <p>Creates remote sessions with a bounded number of attempts, instead of polling the server with new session
+ * requests until a timeout.</p>
+ *
+ * <ul>
+ *     <li>Before each attempt the server's {@code /status} endpoint is probed, so that no session request is sent to
+ *     a server which is down or restarting.</li>
+ *     <li>Attempts are separated by an exponential backoff with jitter, and at most {@code maxSessionsPerNode}
+ *     session requests per server are in flight at a time, so that concurrent tests do not overload a struggling
+ *     server. Waiting for a request slot counts towards the time allowed by the policy.</li>
+ *     <li>Failures caused by the request itself, such as an invalid capability or a missing app, are not retried.</li>
+ * </ul>
+ *
+ * <p>The duration and outcome of each attempt are logged, and summarised by {@link #getStatistics()}.</p>
+ */
+public final class SessionRetryPolicy {
+
+    // Messages of session errors which no retry can fix
+    private static final List<String> fatalErrors = Arrays.asList(
+            "Bad app", "Could not find app", "does not exist or is not accessible", "ENOENT",
+            "Could not parse", "Invalid capabilit", "is not a valid", "must be");
+
+    private static final int probeTimeoutInMillis = 5000;
+
+    private static final Map<String, Semaphore> serverPermits = new ConcurrentHashMap<>();
+
+    private static final LongAdder attempts = new LongAdder();
+    private static final LongAdder failedAttempts = new LongAdder();
+    private static final LongAdder failedProbes = new LongAdder();
+    private static final LongAdder attemptTimeInMillis = new LongAdder();
+
+    private final int maxAttempts;
+    private final long timeOutInSeconds;
+    private final PollingStrategy backoff;
+
+
+    /**
+     * @param maxAttempts           The maximum number of session requests
+     * @param timeOutInSeconds      The overall time allowed for probes, pauses and attempts
+     * @param backoff               The pause before each retry, and between probes of a server which is not ready
+     */
+    public SessionRetryPolicy(int maxAttempts, long timeOutInSeconds, PollingStrategy backoff) {
+        this.maxAttempts = maxAttempts;
+        this.timeOutInSeconds = timeOutInSeconds;
+        this.backoff = backoff;
+    }
+
+    /**
+     * The policy used for Appium sessions, whose creation installs and launches the app.
+     *
+     * @return  A policy of 4 attempts within 3 minutes, with a backoff from 2 to 30 seconds
+     */
+    public static SessionRetryPolicy forAppium() {
+        return new SessionRetryPolicy(4, 180, PollingStrategy.backoff(2000, 2, 30000, 0.25));
+    }
+
+
+    /**
+     * Creates a session on the server.
+     *
+     * @param server        The base URL of the server, e.g. {@code http://host:4723/wd/hub}
+     * @param description   A description of the session for logs
+     * @param factory       Sends the new session request
+     * @param <T>           The driver type
+     * @return              The new session
+     * @throws RuntimeException     If the error is fatal, or if no attempt succeeded within the limits of the policy
+     */
+    public <T> T createSession(URL server, String description, Callable<T> factory) {
+        long timeOutInNanoTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOutInSeconds);
+        Semaphore permit = serverPermits.computeIfAbsent(server.getAuthority(), (key) -> new Semaphore(AppConfig.getMaxSessionsPerNode(), true));
+        Exception lastError = null;
+
+        try {
+            for (int attempt = 0; attempt < maxAttempts && System.nanoTime() < timeOutInNanoTime; attempt++) {
+                PollingStrategy.pause(backoff, attempt, timeOutInNanoTime);
+
+                if (!awaitReady(server, timeOutInNanoTime)) {
+                    break;
+                }
+
+                if (!permit.tryAcquire(Math.max(0, timeOutInNanoTime - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new RuntimeException("Failed to create " + description + " on " + server.getAuthority() + ", no request slot within "
+                            + timeOutInSeconds + " seconds !", lastError);
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    attempts.increment();
+                    T session = factory.call();
+                    Log.info("Created {} on {} in {} ms (attempt {})", description, server.getAuthority(), elapsedInMillis(start), attempt + 1);
+
+                    return session;
+
+                } catch (Exception e) {
+                    failedAttempts.increment();
+                    lastError = e;
+                    Log.warn("Failed to create {} on {} in {} ms (attempt {}) : {}", description, server.getAuthority(), elapsedInMillis(start), attempt + 1, firstLine(e));
+
+                    if (isFatal(e)) {
+                        throw new RuntimeException("Failed to create " + description + ", error is not retriable !", e);
+                    }
+
+                } finally {
+                    attemptTimeInMillis.add(elapsedInMillis(start));
+                    permit.release();
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while creating " + description + " !", e);
+        }
+
+        throw new RuntimeException("Failed to create " + description + " on " + server.getAuthority() + " !", lastError);
+    }
+
+
+    /**
+     * Returns true if the error is caused by the session request itself, and would occur again on retry.
+     *
+     * @param e     The error thrown by a session request
+     * @return      True if the error is not retriable
+     */
+    static boolean isFatal(Exception e) {
+
+        if (e instanceof UnreachableBrowserException) {
+            return false;
+
+        } else if (!(e instanceof WebDriverException)) {
+            // e.g. a malformed URL or a bug in the factory, but not a network failure
+            return !(e instanceof IOException);
+        }
+
+        String message = String.valueOf(e.getMessage());
+
+        return e instanceof SessionNotCreatedException && fatalErrors.stream().anyMatch(message::contains);
+    }
+
+    /**
+     * Probes the server's status endpoint until it responds, with the backoff of the policy.
+     *
+     * @return      True if the server is ready; false if the deadline was reached first
+     */
+    private boolean awaitReady(URL server, long timeOutInNanoTime) throws InterruptedException {
+
+        for (int probe = 0; System.nanoTime() < timeOutInNanoTime; probe++) {
+            PollingStrategy.pause(backoff, probe, timeOutInNanoTime);
+
+            if (isReady(server)) {
+                return true;
+            }
+
+            failedProbes.increment();
+            Log.warn("{} is not ready, retrying...", server.getAuthority());
+        }
+
+        return false;
+    }
+
+    static boolean isReady(URL server) {
+        HttpURLConnection connection = null;
+
+        try {
+            connection = (HttpURLConnection) new URL(server.toString() + "/status").openConnection();
+            connection.setConnectTimeout(probeTimeoutInMillis);
+            connection.setReadTimeout(probeTimeoutInMillis);
+
+            return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+
+        } catch (IOException e) {
+            return false;
+
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+
+    /**
+     * Returns a summary of all session requests for logs, e.g. at the end of a run.
+     *
+     * @return      The number of attempts, failed attempts and failed probes, and the mean attempt duration
+     */
+    public static String getStatistics() {
+        long count = attempts.sum();
+        long mean = (count == 0) ? 0 : attemptTimeInMillis.sum() / count;
+
+        return "SessionRetryPolicy : " + count + " attempts, " + failedAttempts.sum() + " failed, " + failedProbes.sum() + " failed probes, " + mean + " ms mean attempt";
+    }
+
+
+    private static long elapsedInMillis(long startInNanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startInNanoTime);
+    }
+
+    private static String firstLine(Exception e) {
+        String message = String.valueOf(e.getMessage());
+        int end = message.indexOf('\n');
+
+        return (end < 0) ? message : message.substring(0, end);
+    }
+
+}
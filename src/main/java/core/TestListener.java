@@ -1,14 +1,15 @@
 package core;
 
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.TestListenerAdapter;
 
 import utils.Log;
-import utils.core.MobileDriverUtils;
-import utils.core.WebDriverUtils;
-import utils.mail.testFailMail;
 
-public class TestListener extends TestListenerAdapter {
+public class TestListener extends TestListenerAdapter implements ISuiteListener {
 
     /**
      * Controls output for test configuration code blocks (@beforeClass, @beforeMethod, @afterMethod and @afterClass).
@@ -16,64 +17,123 @@ public class TestListener extends TestListenerAdapter {
      */
     @Override
     public void beforeConfiguration(ITestResult result) {
-        String testClassName = result.getTestClass().getName();
+        ExecutionContext context = ExecutionContext.enter(result.getTestClass().getName());
+        Log.clearRecentSteps();
 
         if (result.getMethod().isBeforeClassConfiguration()) {
-            AppConfig.setTestName(testClassName + ".baseSetUp");
-            AppConfig.setTestNumber(AppConfig.getTestNumber() + 1);
+            context.setPhase(ExecutionContext.Phase.baseSetUp);
             Log.info("*** SETTING UP TEST # " + AppConfig.getTestNumber() + " - " +  AppConfig.getTestName() + "***\n\n");
 
         } else if (result.getMethod().isBeforeMethodConfiguration()) {
-            AppConfig.setTestName(testClassName + ".testSetUp");
+            context.setPhase(ExecutionContext.Phase.testSetUp);
             Log.info("*** SETTING UP TEST # " + AppConfig.getTestNumber() + " - " + AppConfig.getTestName() + "***\n\n");
 
         } else if (result.getMethod().isAfterMethodConfiguration()) {
-            AppConfig.setTestName(testClassName + ".testTearDown");
+            context.setPhase(ExecutionContext.Phase.testTearDown);
             Log.info("*** TEARING DOWN TEST # " + AppConfig.getTestNumber() + " - " + AppConfig.getTestName() + "***\n\n");
 
         } else if (result.getMethod().isAfterClassConfiguration()) {
-            AppConfig.setTestName(testClassName + ".baseTearDown");
+            context.setPhase(ExecutionContext.Phase.baseTearDown);
             Log.info("*** DISMISSING DRIVERS " + AppConfig.getTestName() + "***\n\n");
 
         } else {
-            AppConfig.setTestName(testClassName + " - Configuration Type Unknown");
+            context.setPhase(ExecutionContext.Phase.unknown);
             Log.info("*** EXECUTING CONFIGURATION - " + AppConfig.getTestName() + "***\n\n");
         }
     }
 
     @Override
     public void onTestStart(ITestResult result){
-        AppConfig.setTestName(result.getTestClass().getName() + ".test");
+        ExecutionContext context = ExecutionContext.enter(result.getTestClass().getName());
+        Log.clearRecentSteps();
+        context.setPhase(ExecutionContext.Phase.test);
         Log.info("*** TEST # " + AppConfig.getTestNumber() + " RUNNING " + AppConfig.getTestName() + "***\n\n");
     }
 
 
+    @Override
+    public void onFinish(ITestContext context) {
+        super.onFinish(context);
+
+        // Classes whose tear down never ran or was never reported, e.g. skipped after a failed set up
+        for (ITestNGMethod method : context.getAllTestMethods()) {
+            finishTestClass(method.getTestClass().getName());
+        }
+
+        Log.info(Locators.getStatistics());
+        Log.info(ElementCache.getStatistics());
+        Log.info(DriverPool.getStatistics());
+        Log.info(SessionRetryPolicy.getStatistics());
+        Log.info(ConnectionPool.getSharedStatistics());
+        Log.info(FailureReporter.getStatistics());
+        Log.info(ScreenshotService.getStatistics());
+        DurationHistory.save();
+    }
+
+    @Override
+    public void onStart(ISuite suite) {}
+
+    /**
+     * Writes the pending screenshots and delivers the pending failure reports, then mails the failure digest of the
+     * suite if enabled.
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        ScreenshotService.flush(60);
+        FailureReporter.flush(120);
+        FailureDigest.send();
+    }
+
+
+    @Override
+    public void onConfigurationSuccess(ITestResult result) {
+        super.onConfigurationSuccess(result);
+        finishTestClass(result);
+    }
+
     @Override
     public void onConfigurationFailure(ITestResult result){
         executeFailure(AppConfig.getTestName()+ " - Configuration Failed", result);
+        finishTestClass(result);
     }
 
     @Override
-    public void onTestFailure(ITestResult result) {
-        executeFailure(AppConfig.getTestName() + " - Test Failed", result);
+    public void onConfigurationSkip(ITestResult result) {
+        super.onConfigurationSkip(result);
+        finishTestClass(result);
     }
 
-    private void executeFailure(String message, ITestResult result) {
+    /**
+     * Finishes the test class once it is torn down, whether the tear down succeeded, failed or was skipped.
+     */
+    private void finishTestClass(ITestResult result) {
+        if (result.getMethod().isAfterClassConfiguration()) {
+            finishTestClass(result.getTestClass().getName());
+        }
+    }
 
-        if (!AppConfig.getBuildJobName().isEmpty()) {
-            testFailMail failureEmail = new testFailMail(message, Log.getConfigurationSettings(), Log.stackTraceExtractor(result));
-            failureEmail.send();
+    /**
+     * Logs the metrics of the test class, records its duration for {@link TestScheduler} and discards its execution
+     * context. Does nothing if the class is already finished.
+     */
+    private void finishTestClass(String testClassName) {
+        ExecutionContext context = ExecutionContext.finish(testClassName);
 
-        } else {
+        if (context != null) {
+            DurationHistory.record(context.getTestClassName(), System.currentTimeMillis() - context.getStartTimeInMillis());
+            Log.info("*** FINISHED {}***", context);
+        }
+    }
 
-            if (Driver.mobile != null) {
-                MobileDriverUtils.getScreenshot("Failed");
-            }
+    @Override
+    public void onTestFailure(ITestResult result) {
+        executeFailure(AppConfig.getTestName() + " - Test Failed", result);
+    }
 
-            if (Driver.web != null) {
-                WebDriverUtils.getScreenshot("Failed");
-            }
-        }
+    private void executeFailure(String message, ITestResult result) {
+
+        Log.dumpRecentSteps(message);
+        FailureReporter.report(FailureReporter.capture(message, result));
     }
 
 }
@@ -3,13 +3,15 @@ package core;
 import org.testng.IMethodInstance;
 import org.testng.IMethodInterceptor;
 import org.testng.ITestContext;
-import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import utils.Log;
 import utils.TestGroup;
@@ -27,8 +29,13 @@ public class TestRunInterceptor implements IMethodInterceptor {
             testSuite = filterTestSuiteByTaggedGroups(methods, context);
         }
 
-        testSuite.sort((IMethodInstance m1, IMethodInstance m2) -> m1.getInstance().getClass().getPackage().getName()
-                .compareTo(m2.getInstance().getClass().getPackage().getName()));
+        List<String> changedFiles = ImpactAnalysis.getChangedFiles();
+
+        if (changedFiles != null) {
+            testSuite = filterTestSuiteByImpact(testSuite, changedFiles);
+        }
+
+        testSuite = TestScheduler.schedule(testSuite, AppConfig.getShardIndex(), AppConfig.getShardCount());
 
         Log.info("The following tests will now be run: ");
         testSuite.forEach((IMethodInstance) -> Log.info(IMethodInstance.getInstance().getClass().getName()));
@@ -53,23 +60,44 @@ public class TestRunInterceptor implements IMethodInterceptor {
 
     public  List<IMethodInstance> filterTestSuiteByTaggedGroups(List<IMethodInstance> methods, ITestContext context) {
         List<IMethodInstance> testSuite = new ArrayList<>();
-        Set<String> testSuiteGroups = new HashSet(Arrays.asList(context.getIncludedGroups()));
-        Set<String> configurationGroupFilter = new HashSet<>(Arrays.asList(TestGroup.SETUP, TestGroup.TEARDOWN));
+        Predicate<BitSet> filter;
+
+        if (!AppConfig.getGroupExpression().isEmpty()) {
+            Log.info("Filtering tests based on provided group expression: " + AppConfig.getGroupExpression());
+            filter = GroupIndex.compile(AppConfig.getGroupExpression());
+        }
+        else {
+            Set<String> testSuiteGroups = new HashSet<>(Arrays.asList(context.getIncludedGroups()));
+            testSuiteGroups.removeAll(Arrays.asList(TestGroup.SETUP, TestGroup.TEARDOWN));
 
-        Log.info("Filtering tests based on provided groups: " + testSuiteGroups.toString());
+            Log.info("Filtering tests based on provided groups: " + testSuiteGroups.toString());
+            filter = GroupIndex.allOf(testSuiteGroups);
+        }
 
         for(IMethodInstance testCase : methods){
-            Set<String> testCaseGroups = new HashSet(Arrays
-                    .asList(testCase.getMethod().getConstructorOrMethod().getMethod().getAnnotation(Test.class).groups()));
+            if(filter.test(GroupIndex.getGroups(testCase.getMethod()))) {
+                testSuite.add(testCase);
+            }
+        }
 
-            testSuiteGroups.removeAll(configurationGroupFilter);
+        return testSuite;
+    }
 
-            if(testCaseGroups.containsAll(testSuiteGroups)) {
-             testSuite.add(testCase);
-            }
+    public List<IMethodInstance> filterTestSuiteByImpact(List<IMethodInstance> methods, List<String> changedFiles) {
+        Log.info("Filtering tests affected by changed files: " + changedFiles.toString());
 
+        Set<Class<?>> testClasses = new HashSet<>();
+        methods.forEach((IMethodInstance) -> testClasses.add(IMethodInstance.getInstance().getClass()));
+
+        Set<String> affectedClasses = ImpactAnalysis.getAffectedClasses(changedFiles, testClasses);
+
+        if (affectedClasses == null) {
+            Log.info("Running all tests, the changes cannot be analysed");
+            return methods;
         }
 
-        return testSuite;
+        return methods.stream()
+                .filter((IMethodInstance) -> affectedClasses.contains(ImpactAnalysis.getTopLevelClassName(IMethodInstance.getInstance().getClass().getName())))
+                .collect(Collectors.toList());
     }
 }
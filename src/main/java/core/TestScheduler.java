@@ -0,0 +1,128 @@
+package core;
+
+import org.testng.IMethodInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import utils.Log;
+
+/**
+ * <p>Orders test methods by the expected duration of their class, longest first, and optionally selects one of
+ * several shards of near-equal duration.</p>
+ *
+ * <p>Methods of a class are kept together and in their original order, so each class is set up once. Classes with
+ * no recorded duration are assumed to take the median duration of the known classes.</p>
+ *
+ * <p>Shards are assigned with the longest-processing-time rule : each class, longest first, goes to the shard with
+ * the least expected time so far. The assignment only depends on the class list and the duration history, so every
+ * agent computes the same shards as long as they read the same history file, which is never written during a run,
+ * see {@link DurationHistory}. Each shard logs a fingerprint of its inputs : shards logging different fingerprints
+ * did not split the suite the same way, and may have run some classes twice or not at all.</p>
+ */
+final class TestScheduler {
+
+    private static final long defaultDurationInMillis = 60000;
+
+    private TestScheduler() {}
+
+
+    /**
+     * Orders the methods longest class first, and keeps the classes of the configured shard.
+     *
+     * @param methods       The methods selected to run
+     * @param shardIndex    The 1-based shard to keep
+     * @param shardCount    The number of shards; 1 to keep all classes
+     * @return              The methods to run, in execution order
+     */
+    static List<IMethodInstance> schedule(List<IMethodInstance> methods, int shardIndex, int shardCount) {
+        return schedule(methods, DurationHistory.getDurations(), shardIndex, shardCount);
+    }
+
+    /**
+     * Orders the methods longest class first using the given durations, and keeps the classes of the shard.
+     *
+     * @param methods       The methods selected to run
+     * @param durations     Milliseconds by test class name
+     * @param shardIndex    The 1-based shard to keep
+     * @param shardCount    The number of shards; 1 to keep all classes
+     * @return              The methods to run, in execution order
+     */
+    static List<IMethodInstance> schedule(List<IMethodInstance> methods, Map<String, Long> durations, int shardIndex, int shardCount) {
+        Map<String, List<IMethodInstance>> methodsByClass = new LinkedHashMap<>();
+
+        for (IMethodInstance method : methods) {
+            methodsByClass.computeIfAbsent(method.getInstance().getClass().getName(), (name) -> new ArrayList<>()).add(method);
+        }
+
+        long unknownDuration = getMedian(durations);
+
+        List<String> classes = new ArrayList<>(methodsByClass.keySet());
+        classes.sort(Comparator.comparingLong((String name) -> durations.getOrDefault(name, unknownDuration)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        long[] shardTotals = new long[shardCount];
+        List<IMethodInstance> scheduled = new ArrayList<>();
+
+        for (String testClass : classes) {
+            int shard = 0;
+
+            for (int i = 1; i < shardCount; i++) {
+                if (shardTotals[i] < shardTotals[shard]) shard = i;
+            }
+
+            shardTotals[shard] += durations.getOrDefault(testClass, unknownDuration);
+
+            if (shard == shardIndex - 1) {
+                scheduled.addAll(methodsByClass.get(testClass));
+            }
+        }
+
+        if (shardCount > 1) {
+            Log.info("Running shard {}/{} : expected {} s, of shards {} s", shardIndex, shardCount,
+                    shardTotals[shardIndex - 1] / 1000, toSeconds(shardTotals));
+            Log.info("Shard plan fingerprint : {} ({} classes)", getFingerprint(classes, durations, unknownDuration, shardCount), classes.size());
+        }
+
+        return scheduled;
+    }
+
+
+    /**
+     * Returns a hash of the inputs of the split : the classes, their durations and the number of shards.
+     */
+    private static String getFingerprint(List<String> classes, Map<String, Long> durations, long unknownDuration, int shardCount) {
+        CRC32 crc = new CRC32();
+        StringBuilder inputs = new StringBuilder().append(shardCount);
+
+        classes.stream().sorted().forEach((name) -> inputs.append('\n').append(name).append('=').append(durations.getOrDefault(name, unknownDuration)));
+        crc.update(inputs.toString().getBytes(StandardCharsets.UTF_8));
+
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static long getMedian(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return defaultDurationInMillis;
+        }
+
+        List<Long> values = new ArrayList<>(durations.values());
+        Collections.sort(values);
+
+        return values.get(values.size() / 2);
+    }
+
+    private static List<Long> toSeconds(long[] totals) {
+        List<Long> seconds = new ArrayList<>();
+        for (long total : totals) seconds.add(total / 1000);
+
+        return seconds;
+    }
+
+}
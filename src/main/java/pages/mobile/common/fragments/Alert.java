@@ -2,6 +2,7 @@ package pages.mobile.common.fragments;
 
 import core.Driver;
 import core.Elements;
+import core.Locators;
 import org.openqa.selenium.By;
 import utils.core.MobileDriverUtils;
 
@@ -9,17 +10,17 @@ public class Alert {
 
     // elements
     public Elements alertButtonWithId(String id){
-        By locator = By.id(MobileDriverUtils.androidId + id);
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.id(MobileDriverUtils.androidId + id);
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements alertButtonWithText(String buttonText){
-        By locator = By.xpath("//android.widget.Button[@text='" + buttonText + "']");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath("//android.widget.Button[@text=%s]", buttonText);
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements alertTitle(){
-        By locator = By.id(MobileDriverUtils.androidId + "alertTitle");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.id(MobileDriverUtils.androidId + "alertTitle");
+        return new Elements(Driver.getMobile(), locator);
     }
 }
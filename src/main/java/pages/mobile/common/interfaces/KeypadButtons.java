@@ -5,54 +5,55 @@ import org.openqa.selenium.By;
 
 import core.Driver;
 import core.Elements;
+import core.Locators;
 import utils.Log;
 import utils.core.MobileDriverUtils;
 
 public interface KeypadButtons {
 
 	default By digitsLocator(String n) {
-		return By.id(MobileDriverUtils.baseId + "KBDigit" + n);
+		return Locators.id(MobileDriverUtils.baseId + "KBDigit" + n);
 	}
 	
 	// WebElements
 	default Elements getDigit(String n){
-		return new Elements(Driver.mobile, digitsLocator(n));
+		return new Elements(Driver.getMobile(), digitsLocator(n));
 	}
 
 	default Elements deleteButton(){
-		By locator = By.id(MobileDriverUtils.baseId + "KBDelete");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.id(MobileDriverUtils.baseId + "KBDelete");
+		return new Elements(Driver.getMobile(), locator);
 	}
 
 	default Elements clearButton(){
-		By locator = By.id(MobileDriverUtils.baseId + "KBClear");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.id(MobileDriverUtils.baseId + "KBClear");
+		return new Elements(Driver.getMobile(), locator);
 	}
 	
 	default Elements doneButton(){
-		By locator = By.id(MobileDriverUtils.baseId + "KBDone");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.id(MobileDriverUtils.baseId + "KBDone");
+		return new Elements(Driver.getMobile(), locator);
 	}
 	
 	default Elements saveButton(){
-		By locator = By.xpath("//android.widget.Button[@text = 'Save']");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.xpath("//android.widget.Button[@text = 'Save']");
+		return new Elements(Driver.getMobile(), locator);
 	}
 	
 	default Elements cancelButton(){
-		By locator = By.xpath("//android.widget.Button[@text = 'Cancel']");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.xpath("//android.widget.Button[@text = 'Cancel']");
+		return new Elements(Driver.getMobile(), locator);
 	}
 
     default Elements cashDueDoneButton() {
-        By locator = By.xpath("//android.widget.Button[@text = 'Done']");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath("//android.widget.Button[@text = 'Done']");
+        return new Elements(Driver.getMobile(), locator);
 
     }
 
 	default Elements customerLookupButton(){
-		By locator = By.id(MobileDriverUtils.baseId + "LookupAccount");
-		return new Elements(Driver.mobile, locator);
+		By locator = Locators.id(MobileDriverUtils.baseId + "LookupAccount");
+		return new Elements(Driver.getMobile(), locator);
 	}
 	
 	default void sendCode(String code) {
@@ -4,6 +4,7 @@ import org.openqa.selenium.By;
 
 import core.Driver;
 import core.Elements;
+import core.Locators;
 import utils.core.MobileDriverUtils;
 
 
@@ -23,32 +24,32 @@ public class ActionBar {
     }
 
 
-    private String actionBarXPath = "//android.view.View[contains(@resource-id, '" + MobileDriverUtils.androidId + "action')]";
+    private static final String actionBarXPath = "//android.view.View[contains(@resource-id, '" + MobileDriverUtils.androidId + "action')]";
 
 
     public Elements getTitle(){
-        By locator = By.id(MobileDriverUtils.androidId + "action_bar_title");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.id(MobileDriverUtils.androidId + "action_bar_title");
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements backButton() {
-        By locator = By.xpath(actionBarXPath + "//android.widget.LinearLayout[contains(@content-desc, 'Navigate up')]");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath(actionBarXPath + "//android.widget.LinearLayout[contains(@content-desc, 'Navigate up')]");
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements moreOptionsDropdown() {
-        By locator = By.xpath(actionBarXPath + "//android.widget.ImageButton[@content-desc='More options']");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath(actionBarXPath + "//android.widget.ImageButton[@content-desc='More options']");
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements getOverflowItem(ActionBarButton button) {
-        By locator = By.xpath("//android.widget.TextView[@text='" + button.getOptionText() + "']");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath("//android.widget.TextView[@text=%s]", button.getOptionText());
+        return new Elements(Driver.getMobile(), locator);
     }
 
     public Elements getButtonItem(ActionBarButton button) {
-        By locator = By.xpath(actionBarXPath + "//*[@text='" + button.getOptionText() + "']");
-        return new Elements(Driver.mobile, locator);
+        By locator = Locators.xpath(actionBarXPath + "//*[@text=%s]", button.getOptionText());
+        return new Elements(Driver.getMobile(), locator);
     }
 
 }
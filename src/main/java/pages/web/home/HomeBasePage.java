@@ -9,7 +9,7 @@ public class HomeBasePage
 {
     public Elements restaurantTitle(){
         By locator = By.xpath("//a[@class='restaurant-title']");
-        return new Elements(Driver.web, locator);
+        return new Elements(Driver.getWeb(), locator);
     }
 
 }
\ No newline at end of file
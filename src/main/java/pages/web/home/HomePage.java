@@ -7,7 +7,7 @@ import core.Driver;
 public class HomePage extends HomeBasePage{
 
 	public void goTo(){
-		Driver.web.navigate().to(AppConfig.getBaseUrl() + "/");
+		Driver.getWeb().navigate().to(AppConfig.getBaseUrl() + "/");
 	}
 
 }
@@ -13,28 +13,28 @@ import pages.web.restaurant.admin.AdminPage;
 public class LogInPage extends HomeBasePage implements AdminToolbar {
 
 	public void goTo(){
-		Driver.web.navigate().to(AppConfig.getBaseUrl() + "/login");
+		Driver.getWeb().navigate().to(AppConfig.getBaseUrl() + "/login");
 	}
 
 	//region Elements
 	public Elements getEmailInput(){
 		By locator = By.id("email");
-		return new Elements(Driver.web, locator);
+		return new Elements(Driver.getWeb(), locator);
 	}
 	
 	public Elements getPasswordInput(){
 		By locator = By.id("password");
-		return new Elements(Driver.web, locator);
+		return new Elements(Driver.getWeb(), locator);
 	}
 	
 	public Elements getLogInButton(){
 		By locator = By.cssSelector(".btn.btn-primary");
-		return new Elements(Driver.web, locator);
+		return new Elements(Driver.getWeb(), locator);
 	}
 
 	public Elements getForgotPasswordLink(){
 		By locator = By.xpath(".//a[@href='/account/passwordreset']");
-		return new Elements(Driver.web, locator);
+		return new Elements(Driver.getWeb(), locator);
 	}
 	//endregion
 	
@@ -4,8 +4,16 @@ import org.apache.commons.exec.util.StringUtils;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.testng.ITestResult;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.function.Supplier;
+
 import core.AppConfig;
 
 public final class Log {
@@ -14,12 +22,20 @@ public final class Log {
     private static final Level PASS = Level.forName("PASS", 400);
     private static Logger log = LogManager.getLogger();
 
+    private static final int STEP_BUFFER_SIZE = 200;
+    private static volatile boolean quietHotPath = AppConfig.isQuietLogging();
+    private static final ThreadLocal<Deque<Step>> recentSteps = ThreadLocal.withInitial(ArrayDeque::new);
+
     private Log () {}
 
     public static void debug(String s) {
         log.debug(s);
     }
 
+    public static void debug(String format, Object... params) {
+        log.debug(format, params);
+    }
+
     public static void success(String s) {
         log.log(PASS, s);
     }
@@ -28,15 +44,115 @@ public final class Log {
         log.info(s);
     }
 
+    public static void info(String format, Object... params) {
+        log.info(format, params);
+    }
+
+    public static void info(Supplier<String> message) {
+        if (log.isInfoEnabled()) {
+            log.info(message.get());
+        }
+    }
+
     public static void warn(String s) {
         log.warn(s);
     }
 
+    public static void warn(String format, Object... params) {
+        log.warn(format, params);
+    }
+
     public static void error(String s) {
         log.error(s);
     }
 
 
+    /**
+     * Routes the output of the current thread to the log file of the test class, see {@code log4j2.xml}.
+     *
+     * @param testClassName     Fully qualified name of the running test class; null to route to the framework log
+     */
+    public static void setTestClass(String testClassName) {
+        if (testClassName == null) {
+            ThreadContext.remove("testClass");
+        } else {
+            ThreadContext.put("testClass", testClassName);
+        }
+    }
+
+
+    //region Hot path logging
+    /**
+     * Logs a low level operation, such as an element lookup or a tap. In quiet mode the operation is only recorded
+     * in a ring buffer of the current thread, and formatted when {@link #dumpRecentSteps(String)} is called on
+     * failure. Otherwise it is logged at INFO level.
+     *
+     * @param format    Message using {@code {}} placeholders
+     * @param params    Values of the placeholders
+     */
+    public static void step(String format, Object... params) {
+
+        if (!quietHotPath) {
+            log.info(format, params);
+            return;
+        }
+
+        Deque<Step> steps = recentSteps.get();
+
+        if (steps.size() >= STEP_BUFFER_SIZE) {
+            steps.removeFirst();
+        }
+
+        steps.addLast(new Step(format, params));
+    }
+
+    public static void setQuietHotPath(boolean quiet) {
+        quietHotPath = quiet;
+    }
+
+    /**
+     * Logs and clears the operations recorded by {@link #step(String, Object...)} on the current thread.
+     *
+     * @param reason    Header logged before the operations
+     */
+    public static void dumpRecentSteps(String reason) {
+        Deque<Step> steps = recentSteps.get();
+
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        log.warn("Last {} operations before {} :", steps.size(), reason);
+        steps.forEach((step) -> log.warn("    {}", step));
+        steps.clear();
+    }
+
+    /**
+     * Clears the operations recorded on the current thread, e.g. when a new test starts.
+     */
+    public static void clearRecentSteps() {
+        recentSteps.get().clear();
+    }
+
+    private static final class Step {
+
+        private final long timeInMillis = System.currentTimeMillis();
+        private final String format;
+        private final Object[] params;
+
+        Step(String format, Object[] params) {
+            this.format = format;
+            this.params = params;
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(timeInMillis)) + " - " + ParameterizedMessage.format(format, params);
+        }
+    }
+    //endregion
+
+
 
     private static String stackTraceFormatter(Throwable throwable) {
 
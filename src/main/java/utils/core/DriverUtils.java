@@ -1,22 +1,23 @@
 package utils.core;
 
-import org.apache.commons.io.FileUtils;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
-import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
 import core.AppConfig;
+import core.Screenshot;
+import core.ScreenshotService;
 import utils.Log;
 
 public final class DriverUtils {
 
     private DriverUtils() {}
 
+    /**
+     * Takes a screenshot, and saves it to {@code ../screenshots/} once {@link ScreenshotService} has encoded it.
+     */
     public static void getScreenshot(WebDriver driver, String message) {
 
         String testName = AppConfig.getTestName();
@@ -24,18 +25,16 @@ public final class DriverUtils {
 
         String time = new SimpleDateFormat("HH.mm.ss.SSS").format(new Date());
 
-        String fileName = time + "-" + testNameString + "-" + message + ".jpg";
+        String fileName = time + "-" + testNameString + "-" + message;
 
-        try {
-            File file = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+        Screenshot screenshot = ScreenshotService.capture(driver, message);
 
-            FileUtils.copyFile(file, new File("../screenshots/" + fileName));
-            Log.info("Screenshot Saved  -  " + fileName);
-
-        } catch (Exception ex) {
+        if (screenshot == null) {
             Log.error("Unable to take screenshot");
-            ex.printStackTrace();
+            return;
         }
+
+        ScreenshotService.saveAsync(screenshot, fileName);
     }
 
     public static void setScriptTimeout(WebDriver driver, int timeout) {
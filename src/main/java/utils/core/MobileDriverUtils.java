@@ -1,11 +1,11 @@
 package utils.core;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.ScreenOrientation;
 
 import core.Driver;
 import core.Elements;
+import core.Locators;
 import data.enums.SwipeDirection;
 import io.appium.java_client.NetworkConnectionSetting;
 import io.appium.java_client.TouchAction;
@@ -20,23 +20,24 @@ public final class MobileDriverUtils {
 
     //region DriverUtils Methods
     public static void getScreenshot(String message) {
-        DriverUtils.getScreenshot(Driver.mobile, message);
+        DriverUtils.getScreenshot(Driver.getMobile(), message);
     }
     //endregion
 
     //region MobileDriver specific methods
     public static void tapPoint(int x, int y) {
-        Log.info("Tapping position (" + x + ", " + y + ") on screen");
-        ((AndroidDriver) Driver.mobile).tap(1, x, y, 1);
+        Log.step("Tapping position ({}, {}) on screen", x, y);
+        ((AndroidDriver) Driver.getMobile()).tap(1, x, y, 1);
+        Elements.invalidatePageSource(Driver.getMobile());
     }
 
     public static void setNetwork(boolean enable) {
-        Log.info("Setting network connectivity to " + (enable ? "'Enabled'" : "'Disabled'"));
-        ((AndroidDriver) Driver.mobile).setNetworkConnection(new NetworkConnectionSetting(!enable, enable, false));
+        Log.info("Setting network connectivity to {}", (enable ? "'Enabled'" : "'Disabled'"));
+        ((AndroidDriver) Driver.getMobile()).setNetworkConnection(new NetworkConnectionSetting(!enable, enable, false));
     }
 
     public static boolean isNetworkEnabled() {
-        NetworkConnectionSetting network = ((AndroidDriver) Driver.mobile).getNetworkConnection();
+        NetworkConnectionSetting network = ((AndroidDriver) Driver.getMobile()).getNetworkConnection();
         return (network.wifiEnabled() && !network.airplaneModeEnabled());
     }
 
@@ -71,8 +72,9 @@ public final class MobileDriverUtils {
         for (int i = 0; i < attempts; i++) {
             try {
 
-                Log.info("Scrolling to " + text + "...");
-                ((AndroidDriver) Driver.mobile).findElementByAndroidUIAutomator(uiScrollableObject);
+                Log.step("Scrolling to {}...", text);
+                ((AndroidDriver) Driver.getMobile()).findElementByAndroidUIAutomator(uiScrollableObject);
+                Elements.invalidatePageSource(Driver.getMobile());
                 return true;
 
             } catch (Exception exception) {
@@ -85,7 +87,7 @@ public final class MobileDriverUtils {
 
 
     public static void rotate(ScreenOrientation orientation) {
-        Log.info("Rotating screen to " + orientation.toString());
+        Log.info("Rotating screen to {}", orientation);
 
         if (orientation == ScreenOrientation.LANDSCAPE) {
             orientation = ScreenOrientation.PORTRAIT;
@@ -94,7 +96,8 @@ public final class MobileDriverUtils {
         }
 
         try {
-            ((AndroidDriver) Driver.mobile).rotate(orientation);
+            ((AndroidDriver) Driver.getMobile()).rotate(orientation);
+            Elements.invalidatePageSource(Driver.getMobile());
         } catch (Exception e) {
             Log.error("ERROR : Failed to rotate screen  - " + e.getMessage());
         }
@@ -102,7 +105,7 @@ public final class MobileDriverUtils {
     }
 
     public static ScreenOrientation getOrientation() {
-        ScreenOrientation orientation = ((AndroidDriver) Driver.mobile).getOrientation();
+        ScreenOrientation orientation = ((AndroidDriver) Driver.getMobile()).getOrientation();
 
         if (orientation == ScreenOrientation.LANDSCAPE) {
             orientation = ScreenOrientation.PORTRAIT;
@@ -115,56 +118,60 @@ public final class MobileDriverUtils {
 
     public static void openNotificationCenter() {
         Log.info("Opening notification center");
-        ((AndroidDriver) Driver.mobile).openNotifications();
+        ((AndroidDriver) Driver.getMobile()).openNotifications();
+        Elements.invalidatePageSource(Driver.getMobile());
     }
 
     public static void dismissNotificationCenter() {
         Log.info("Dismissing notification center");
-        Driver.mobile.navigate().back();
+        Driver.getMobile().navigate().back();
+        Elements.invalidatePageSource(Driver.getMobile());
     }
 
     public static void dragAndDrop(Elements from, Elements to) {
-        Log.info("Dragging " + from.getTagName() + " to " + to.getTagName());
-        new TouchAction(((AndroidDriver) Driver.mobile)).longPress(from.getRawElement()).moveTo(to.getRawElement()).release().perform();
+        Log.info("Dragging {} to {}", from.getTagName(), to.getTagName());
+        new TouchAction(((AndroidDriver) Driver.getMobile())).longPress(from.getRawElement()).moveTo(to.getRawElement()).release().perform();
+        Elements.invalidatePageSource(Driver.getMobile());
     }
 
     public static void swipe(SwipeDirection swipeDirection){
-        Dimension dimension = Driver.mobile.manage().window().getSize();
+        Dimension dimension = Driver.getMobile().manage().window().getSize();
         int startX;
         int startY;
         switch (swipeDirection) {
             case LEFT:
                 startX = (int) (dimension.getWidth() * 0.9);
                 startY = (int) (dimension.getHeight() * 0.5);
-                new TouchAction(((AndroidDriver) Driver.mobile)).longPress(startX,startY).moveTo(dimension.getWidth() - startX, startY).release().perform();
+                new TouchAction(((AndroidDriver) Driver.getMobile())).longPress(startX,startY).moveTo(dimension.getWidth() - startX, startY).release().perform();
                 break;
             case RIGHT:
                 startX = (int) (dimension.getWidth() * 0.1);
                 startY = (int) (dimension.getHeight() * 0.5);
-                new TouchAction(((AndroidDriver) Driver.mobile)).longPress(startX,startY).moveTo(dimension.getWidth(), startY).release().perform();
+                new TouchAction(((AndroidDriver) Driver.getMobile())).longPress(startX,startY).moveTo(dimension.getWidth(), startY).release().perform();
                 break;
             case UP:
                 startX = (int) (dimension.getWidth() * 0.5);
                 startY = (int) (dimension.getHeight() * 0.9);
-                new TouchAction(((AndroidDriver) Driver.mobile)).longPress(startX,startY).moveTo(startX, dimension.getHeight()-startY).release().perform();
+                new TouchAction(((AndroidDriver) Driver.getMobile())).longPress(startX,startY).moveTo(startX, dimension.getHeight()-startY).release().perform();
                 break;
             case DOWN:
                 startX = (int) (dimension.getWidth() * 0.5);
                 startY = (int) (dimension.getHeight() * 0.1);
-                new TouchAction(((AndroidDriver) Driver.mobile)).longPress(startX,startY).moveTo(startX, dimension.getHeight()-startY).release().perform();
+                new TouchAction(((AndroidDriver) Driver.getMobile())).longPress(startX,startY).moveTo(startX, dimension.getHeight()-startY).release().perform();
                 break;
         }
+        Elements.invalidatePageSource(Driver.getMobile());
     }
 
     public static Boolean verifyListItems(String[] listItems) {
         for (String listItem : listItems) {
-            if (new Elements(Driver.mobile, By.xpath("//*[@text = '" + listItem + "']")).waitForVisible(2)) {
-                Log.info("Found " + listItem + " On Screen");
+            if (new Elements(Driver.getMobile(), Locators.xpath("//*[@text = %s]", listItem)).waitForVisible(2)) {
+                Log.step("Found {} On Screen", listItem);
             } else {
                 if(!scrollTo(listItem)){
                     return false;
                 }
-                Log.info("Found " + listItem + " By Scrolling");
+                Log.step("Found {} By Scrolling", listItem);
             }
         }
         return true;
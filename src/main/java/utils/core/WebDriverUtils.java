@@ -21,7 +21,7 @@ public final class WebDriverUtils {
      * @param message String containing the exception that caused the screenshot to be taken
      */
     public static void getScreenshot(String message){
-        DriverUtils.getScreenshot(Driver.web, message);
+        DriverUtils.getScreenshot(Driver.getWeb(), message);
     }
     //endregion
 
@@ -34,7 +34,7 @@ public final class WebDriverUtils {
     public static void waitForAlert() throws InterruptedException {
         for(int i = 0; i < 5; i++) {
             try {
-                Driver.web.switchTo().alert();
+                Driver.getWeb().switchTo().alert();
                 break;
             } catch(NoAlertPresentException e) {
                 Thread.sleep(1000);
@@ -49,7 +49,7 @@ public final class WebDriverUtils {
     public static void acceptAlert() {
         try {
             waitForAlert();
-            Alert alert = Driver.web.switchTo().alert();
+            Alert alert = Driver.getWeb().switchTo().alert();
             Log.info("Successfully switched to alert");
             alert.accept();
         } catch (Exception e) {
@@ -61,7 +61,7 @@ public final class WebDriverUtils {
      * Publishes all config changes
      */
     public static void publishWeb(){
-        Driver.web.navigate().to(AppConfig.getBaseUrl() + "/restaurants/admin/applyconfigchanges?restaurantId=1000000000000");
+        Driver.getWeb().navigate().to(AppConfig.getBaseUrl() + "/restaurants/admin/applyconfigchanges?restaurantId=1000000000000");
         PublishPage publishPage = new PublishPage();
         publishPage.publishMessageText().waitForVisible();
         Log.info("Publish Message: " + publishPage.publishMessageText().getText());
@@ -3,10 +3,14 @@ package utils.mail;
 import com.sun.mail.smtp.SMTPMessage;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.activation.DataHandler;
 import javax.mail.Authenticator;
 import javax.mail.Message;
 import javax.mail.PasswordAuthentication;
@@ -15,12 +19,16 @@ import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
 
+import core.AppConfig;
 import utils.Log;
 import utils.StringConverter;
 
 public abstract class testMail {
 
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
     Message mEmail;
     Session mSession;
     List<MimeBodyPart> screenshotAttachments;
@@ -29,28 +37,69 @@ public abstract class testMail {
     InternetAddress mRecipient;
     InternetAddress mCC;
 
+    /**
+     * Returns the mail session of the account on the configured SMTP server, created once and shared by all mails.
+     */
     protected Session sessionConstructor(String email, String password) {
-        final String SSL_FACTORY = "javax.net.ssl.SSLSocketFactory";
-
-        Properties props = new Properties();
-        props.setProperty("mail.smtp.host", "smtp.gmail.com");
-        props.setProperty("mail.smtp.socketFactory.class", SSL_FACTORY);
-        props.setProperty("mail.smtp.socketFactory.fallback", "false");
-        props.setProperty("mail.smtp.port", "465");
-        props.setProperty("mail.smtp.socketFactory.port", "465");
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.debug", "true");
-        props.put("mail.store.protocol", "pop3");
-        props.put("mail.transport.protocol", "smtp");
-
-        Session session = Session.getDefaultInstance(props, new Authenticator() {
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(email, password);
+        String key = email + "@" + AppConfig.getSmtpHost() + ":" + AppConfig.getSmtpPort() + (AppConfig.isSmtpSsl() ? "/ssl" : "");
+
+        return sessions.computeIfAbsent(key, (ignored) -> {
+            final String SSL_FACTORY = "javax.net.ssl.SSLSocketFactory";
+            String port = String.valueOf(AppConfig.getSmtpPort());
+
+            Properties props = new Properties();
+            props.setProperty("mail.smtp.host", AppConfig.getSmtpHost());
+            props.setProperty("mail.smtp.port", port);
+
+            if (AppConfig.isSmtpSsl()) {
+                props.setProperty("mail.smtp.socketFactory.class", SSL_FACTORY);
+                props.setProperty("mail.smtp.socketFactory.fallback", "false");
+                props.setProperty("mail.smtp.socketFactory.port", port);
+                props.put("mail.smtp.auth", "true");
             }
+
+            props.put("mail.debug", "true");
+            props.put("mail.store.protocol", "pop3");
+            props.put("mail.transport.protocol", "smtp");
+
+            Session session = Session.getInstance(props, new Authenticator() {
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(email, password);
+                }
+            });
+
+            session.setDebug(false);
+            return session;
         });
+    }
+
+    /**
+     * @return      The JIRA copy address of the running build job; or null if the job has none
+     */
+    protected static InternetAddress buildJobCCConstructor() throws UnsupportedEncodingException {
+        if (AppConfig.getBuildJobName().contains("integration")) {
+            return new InternetAddress("automation+integration@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("retro")) {
+            return new InternetAddress("automation+retro@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("menusphere")) {
+            return new InternetAddress("automation+menusphere@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("release-candidate-ga")) {
+            return new InternetAddress("automation+release-ga@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("release-candidate-preview")) {
+            return new InternetAddress("automation+release-preview@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("generally-available")) {
+            return new InternetAddress("automation+generally-available@test.com", "JIRA");
+        }
+        else if (AppConfig.getBuildJobName().contains("preview-pool")) {
+            return new InternetAddress("automation+preview-pool@test.com", "JIRA");
+        }
 
-        session.setDebug(false);
-        return session;
+        return null;
     }
 
     protected List<MimeBodyPart> imageAttachmentConstructor(List<File> images) {
@@ -73,6 +122,31 @@ public abstract class testMail {
         return imageAttachments;
     }
 
+    /**
+     * @param images        Images by content id, which the message can reference as {@code <img src="cid:id">}
+     * @param contentType   The content type of the images, e.g. {@code image/jpeg}
+     */
+    protected List<MimeBodyPart> imageAttachmentConstructor(Map<String, byte[]> images, String contentType) {
+        List<MimeBodyPart> imageAttachments = new ArrayList<>();
+        String extension = contentType.substring(contentType.indexOf('/') + 1);
+
+        try {
+            for (Map.Entry<String, byte[]> image : images.entrySet()) {
+                MimeBodyPart imageAttachment = new MimeBodyPart();
+                imageAttachment.setHeader("Content-ID", "<" + image.getKey() + ">");
+                imageAttachment.setDisposition(MimeBodyPart.INLINE);
+                imageAttachment.setDataHandler(new DataHandler(new ByteArrayDataSource(image.getValue(), contentType)));
+                imageAttachment.setFileName(image.getKey() + "." + extension);
+                imageAttachments.add(imageAttachment);
+            }
+
+        } catch (Exception exception) {
+            Log.error("ERROR: Unable to Attach Screenshots to Email");
+        }
+
+        return imageAttachments;
+    }
+
     protected MimeBodyPart emailMessageConstructor(String content) {
         MimeBodyPart emailMessage = new MimeBodyPart();
 
@@ -0,0 +1,33 @@
+package utils.mail;
+
+import java.util.Map;
+
+import javax.mail.internet.InternetAddress;
+
+import utils.Log;
+
+public class testDigestMail extends testMail {
+
+    /**
+     * @param title         The subject, e.g. the number of failures in the digest
+     * @param content       The text of the digest; lines may contain HTML, e.g. links and images
+     * @param thumbnails    The JPEG images referenced by the content, by content id
+     */
+    public testDigestMail(String title, String content, Map<String, byte[]> thumbnails) {
+        try {
+            mCC = buildJobCCConstructor();
+
+            mSession = sessionConstructor("testqa@gmail.com", "");
+            mRecipient = new InternetAddress("jira@test.atlassian.net", "JIRA");
+            mTitle = title;
+            mMessage = emailMessageConstructor(content);
+            screenshotAttachments = imageAttachmentConstructor(thumbnails, "image/jpeg");
+
+            prepareEmail();
+
+        } catch (Exception exception) {
+            Log.info("Failure: Unable to Generate Digest Email!");
+        }
+    }
+
+}
@@ -4,8 +4,8 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Listeners;
 
-import core.AppConfig;
 import core.Database;
+import core.DatabaseSnapshot;
 import core.Driver;
 import core.DriverFactory;
 import core.TestListener;
@@ -32,10 +32,11 @@ public abstract class MobileTest {
 		Log.info("Setting Up Test...");
 		mAssert = new Assert();
 
-		Database database = new Database();
-		if (AppConfig.getTestNumber() == 1) database.setEmployeePasscodes();
-		database.resetDatabaseAndSync();
-		Driver.mobile = DriverFactory.getMobileDriver();
+		try (Database database = new Database()) {
+			SuiteSetUp.setEmployeePasscodes(database);
+			DatabaseSnapshot.reset(database, database::resetDatabaseAndSync, database::syncDatabase);
+		}
+		Driver.setMobile(DriverFactory.leaseMobileDriver());
 
 		try{
 			SetUp.mobileLogin(loginUser);
@@ -49,9 +50,6 @@ public abstract class MobileTest {
 		
 	@AfterClass(alwaysRun = true)
     public void baseTearDown() throws Exception {
-        if (Driver.mobile != null) {
-            Driver.mobile.quit();
-			Driver.mobile = null;
-        }
+        Driver.releaseMobile();
 	}
 }
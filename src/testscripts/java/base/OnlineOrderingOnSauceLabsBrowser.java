@@ -3,9 +3,9 @@ package base;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 
-import core.AppConfig;
 import core.Driver;
 import core.DriverFactory;
+import core.ExecutionContext;
 import data.enums.saucelabs.BrowserInfo;
 import pages.web.restaurant.onlineorderingV1.MenuPage;
 import utils.Assert;
@@ -27,12 +27,11 @@ public abstract class OnlineOrderingOnSauceLabsBrowser {
 	@BeforeClass(alwaysRun = true)
 	public void setUp () throws Exception
 	{
-		AppConfig.setTestName(this.getClass().getName());
-		AppConfig.setTestNumber(AppConfig.getTestNumber() + 1);
+		ExecutionContext.enter(this.getClass().getName()).setPhase(ExecutionContext.Phase.baseSetUp);
 
 		mAssert = new Assert();
 
-		Driver.web = DriverFactory.getSauceLabsDriver(browser);
+		Driver.setWeb(DriverFactory.getSauceLabsDriver(browser));
 		try
 		{
 			MenuPage menuPage = new MenuPage();
@@ -46,10 +45,8 @@ public abstract class OnlineOrderingOnSauceLabsBrowser {
 
 	@AfterClass(alwaysRun = true)
 	public void baseTearDown() throws Exception {
-		if (Driver.web != null) {
-			Driver.web.quit();
-			Driver.web = null;
-		}
+		Driver.quitWeb();
+		ExecutionContext.finish(this.getClass().getName());
 	}
 
 }
@@ -0,0 +1,29 @@
+package base;
+
+import core.Database;
+
+/**
+ * Set up steps which run once per suite, on behalf of whichever test class is set up first. Test classes may be set
+ * up concurrently, e.g. with {@code parallel="classes"}, so the test number cannot tell which class is first.
+ */
+final class SuiteSetUp {
+
+    private static boolean arePasscodesSet = false;
+
+    private SuiteSetUp() {}
+
+
+    /**
+     * Sets the employee passcodes on the first call of the suite. Concurrent callers wait until it is done; if it
+     * fails, the next caller tries again.
+     *
+     * @param database      The database of the calling test class
+     */
+    static synchronized void setEmployeePasscodes(Database database) {
+        if (!arePasscodesSet) {
+            database.setEmployeePasscodes();
+            arePasscodesSet = true;
+        }
+    }
+
+}
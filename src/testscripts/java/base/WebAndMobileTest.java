@@ -1,13 +1,26 @@
 package base;
 
+import org.openqa.selenium.WebDriver;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Listeners;
 
-import core.AppConfig;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
 import core.Database;
+import core.DatabaseSnapshot;
 import core.Driver;
 import core.DriverFactory;
+import core.ExecutionContext;
 import core.TestListener;
 import core.TestRunInterceptor;
 import data.enums.Employees;
@@ -22,6 +35,8 @@ public abstract class WebAndMobileTest {
 
     public Assert mAssert;
 
+    private static final long stepStopTimeOutInSeconds = 60;
+
     @BeforeClass(alwaysRun = true)
 	public void setUp() throws Exception {
         setUp(new User(Employees.MANAGER), new User(Employees.MANAGER));
@@ -31,36 +46,138 @@ public abstract class WebAndMobileTest {
         setUp(loginUser, loginUser);
     }
 	
+    /**
+     * Runs the independent set up steps concurrently : the database reset overlaps the creation of both drivers, and
+     * each login starts as soon as the database and its driver are ready. The first failing step cancels the steps
+     * which have not finished, and interrupts those still running. Its exception is rethrown once the running steps
+     * have stopped, so that baseTearDown() never releases a driver which a step is still using.
+     */
     public void setUp (User webLoginUser, User mobileLoginUser) throws Exception {
         Log.info("Setting Up Test...");
         mAssert = new Assert();
 
-        Database database = new Database();
-        if (AppConfig.getTestNumber() == 1) database.setEmployeePasscodes();
-        database.resetDatabaseAndSync();
-        Driver.mobile = DriverFactory.getMobileDriver();
-        Driver.web = DriverFactory.getWebDriver();
-        try{
+        Driver.Session session = Driver.capture();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean isCancelled = new AtomicBoolean(false);
+
+        CompletableFuture<Void> databaseReset = CompletableFuture.runAsync(inContext(() -> {
+            try (Database database = new Database()) {
+                SuiteSetUp.setEmployeePasscodes(database);
+                DatabaseSnapshot.reset(database, database::resetDatabaseAndSync, database::syncDatabase);
+            }
+
+            return null;
+        }), executor);
+
+        CompletableFuture<Void> mobileDriver = CompletableFuture.runAsync(inContext(() -> {
+            bindDriver(session, isCancelled, DriverFactory.leaseMobileDriver(), Driver::setMobile);
+            return null;
+        }), executor);
+
+        CompletableFuture<Void> webDriver = CompletableFuture.runAsync(inContext(() -> {
+            bindDriver(session, isCancelled, DriverFactory.leaseWebDriver(), Driver::setWeb);
+            return null;
+        }), executor);
+
+        CompletableFuture<Void> mobileLogin = CompletableFuture.allOf(databaseReset, mobileDriver).thenRunAsync(inContext(() -> {
             SetUp.mobileLogin(mobileLoginUser);
+            return null;
+        }), executor);
+
+        CompletableFuture<Void> webLogin = CompletableFuture.allOf(databaseReset, webDriver).thenRunAsync(inContext(() -> {
             LogInPage logInPage = new LogInPage();
-			logInPage.logIn(webLoginUser);
+            logInPage.logIn(webLoginUser);
+            return null;
+        }), executor);
+
+        try{
+            awaitAll(databaseReset, mobileDriver, webDriver, mobileLogin, webLogin);
             Log.success("Success: Test Set Up Complete\n\n");
         }
 		catch (Exception ex) {
+            synchronized (session) {
+                isCancelled.set(true);
+            }
+
+            // Cancelling only stops the steps which have not started; running steps are interrupted by shutdownNow()
+            Arrays.asList(databaseReset, mobileDriver, webDriver, mobileLogin, webLogin).forEach((step) -> step.cancel(true));
+            executor.shutdownNow();
+
+            if (!executor.awaitTermination(stepStopTimeOutInSeconds, TimeUnit.SECONDS)) {
+                Log.warn("Set up steps still running {} seconds after the failure", stepStopTimeOutInSeconds);
+            }
+
             Log.error("Set Up was unable to finish\n\n");
             throw ex;
         }
+        finally {
+            executor.shutdown();
+        }
 	}
 
-    @AfterClass(alwaysRun = true)
-    public void baseTearDown() throws Exception {
-        if (Driver.mobile != null) {
-            Driver.mobile.quit();
-            Driver.mobile = null;
+    /**
+     * Binds a new driver to the session, so that baseTearDown() releases it even if another step fails. A driver
+     * created after the set up has been cancelled is released immediately, as the tear down may already have run.
+     */
+    private static void bindDriver(Driver.Session session, AtomicBoolean isCancelled, WebDriver driver, Consumer<WebDriver> setter) {
+        synchronized (session) {
+            if (isCancelled.get()) {
+                DriverFactory.release(driver);
+            } else {
+                setter.accept(driver);
+            }
         }
-        if (Driver.web != null) {
-            Driver.web.quit();
-            Driver.web = null;
+    }
+
+    /**
+     * Wraps a set up step to run on a worker thread with the execution context, driver session and log file of the
+     * test class.
+     */
+    private static Runnable inContext(Callable<Void> step) {
+        Callable<Void> wrapped = ExecutionContext.wrap(step);
+
+        return () -> {
+            try {
+                wrapped.call();
+
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    /**
+     * Waits for all steps, failing as soon as any step fails.
+     *
+     * @throws Exception    The exception thrown by the first failing step
+     */
+    private static void awaitAll(CompletableFuture<?>... steps) throws Exception {
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+
+        for (CompletableFuture<?> step : steps) {
+            step.whenComplete((result, e) -> {
+                if (e != null) firstFailure.completeExceptionally(e);
+            });
+        }
+
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(steps), firstFailure).get();
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw new RuntimeException("Set up step failed !", cause);
         }
     }
+
+    @AfterClass(alwaysRun = true)
+    public void baseTearDown() throws Exception {
+        Driver.releaseMobile();
+        Driver.releaseWeb();
+    }
 }
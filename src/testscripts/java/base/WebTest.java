@@ -5,6 +5,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Listeners;
 
 import core.Database;
+import core.DatabaseSnapshot;
 import core.Driver;
 import core.DriverFactory;
 import core.TestListener;
@@ -29,9 +30,10 @@ public abstract class WebTest {
 		Log.info("Setting Up Test...");
 		mAssert = new Assert();
 
-		Database database = new Database();
-		database.resetDatabase();
-		Driver.web = DriverFactory.getWebDriver();
+		try (Database database = new Database()) {
+			DatabaseSnapshot.reset(database, database::resetDatabase);
+		}
+		Driver.setWeb(DriverFactory.leaseWebDriver());
 		try
 		{
 			LogInPage logInPage = new LogInPage();
@@ -46,9 +48,6 @@ public abstract class WebTest {
 	
 	@AfterClass(alwaysRun = true)
     public void baseTearDown() throws Exception {
-        if (Driver.web != null) {
-			Driver.web.quit();
-			Driver.web = null;
-        }
+        Driver.releaseWeb();
     }
 }
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.ConfigurationFactory;
+import org.apache.logging.log4j.core.config.ConfigurationSource;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import utils.Log;
+
+
+/**
+ * Measures the latency of a single {@code info} call under the synchronous console configuration
+ * ({@code log4j2-sync.xml}) and the asynchronous configuration shipped with the framework ({@code log4j2.xml}).
+ *
+ * Run with {@code gradle runTests -Dgroup=benchmark}.
+ */
+public class LogLatencyBenchmark {
+
+    private static final int warmUpCalls = 2000;
+    private static final int measuredCalls = 20000;
+
+
+    @Test (groups={"benchmark"})
+    public void compareSyncAndAsyncLogging() throws Exception {
+        String sync = measure("sync", new File("resources/log4j2-sync.xml"));
+        String async = measure("async", new File("resources/log4j2.xml"));
+
+        Log.info("Log.info latency (" + measuredCalls + " calls)");
+        Log.info(sync);
+        Log.info(async);
+    }
+
+
+    private String measure(String name, File configFile) throws Exception {
+        long[] latencies = new long[measuredCalls];
+        PrintStream stdout = System.out;
+
+        // The console appender binds to System.out when it is created, so the redirect must come first
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {}
+        }));
+
+        LoggerContext context = new LoggerContext(name);
+
+        try (InputStream input = new FileInputStream(configFile)) {
+            context.start(ConfigurationFactory.getInstance().getConfiguration(new ConfigurationSource(input, configFile)));
+            Logger logger = context.getLogger(LogLatencyBenchmark.class.getName());
+
+            for (int i = 0; i < warmUpCalls; i++) {
+                logger.info("Warming up " + i);
+            }
+
+            for (int i = 0; i < measuredCalls; i++) {
+                long start = System.nanoTime();
+                logger.info("Clicking on element : By.id: com.example:id/button_" + i);
+                latencies[i] = System.nanoTime() - start;
+            }
+
+        } finally {
+            context.stop();
+            System.setOut(stdout);
+        }
+
+        Arrays.sort(latencies);
+        long total = 0;
+        for (long latency : latencies) total += latency;
+
+        return String.format("%-5s : mean %.2f us, p50 %.2f us, p99 %.2f us, max %.2f us", name,
+                total / 1000.0 / measuredCalls,
+                latencies[measuredCalls / 2] / 1000.0,
+                latencies[(int) (measuredCalls * 0.99)] / 1000.0,
+                latencies[measuredCalls - 1] / 1000.0);
+    }
+
+}
@@ -0,0 +1,155 @@
+package core;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+/**
+ * Unit tests of the layering of configuration sources and overrides in {@link AppConfig}. Sources are passed as maps,
+ * so the tests do not depend on the environment of the run.
+ *
+ * Run with {@code gradle runTests -Dgroup=unit}.
+ */
+public class AppConfigTest {
+
+    @Test (groups={"unit"})
+    public void laterSourcesWin() {
+        Properties file = properties("browser", "chrome", "deviceName", "Samsung Tab 4", "restaurant", "file");
+        Map<String, String> environment = map("QA_BROWSER", "firefox", "QA_RESTAURANT", "environment");
+        Map<String, String> system = map("browser", "safari");
+
+        Map<String, String> values = AppConfig.layerSources(file, environment::get, system::get);
+
+        assertEquals(values.get("browser"), "safari");
+        assertEquals(values.get("restaurant"), "environment");
+        assertEquals(values.get("deviceName"), "Samsung Tab 4");
+    }
+
+    @Test (groups={"unit"})
+    public void environmentVariablesAreUpperSnakeCase() {
+        Map<String, String> environment = map("QA_TEST_ENVIRONMENT", "stage", "QA_MAX_SESSIONS_PER_NODE", "4", "testEnvironment", "prod");
+
+        Map<String, String> values = AppConfig.layerSources(properties(), environment::get, (key) -> null);
+
+        assertEquals(values.get("testEnvironment"), "stage");
+        assertEquals(values.get("maxSessionsPerNode"), "4");
+    }
+
+    @Test (groups={"unit"})
+    public void valuesAreTrimmed() {
+        Map<String, String> values = AppConfig.layerSources(properties("browser", " chrome "),
+                map("QA_DEVICE_NAME", " Nexus 9\t")::get, map("shard", " 1/2 ")::get);
+
+        assertEquals(values.get("browser"), "chrome");
+        assertEquals(values.get("deviceName"), "Nexus 9");
+        assertEquals(values.get("shard"), "1/2");
+    }
+
+    @Test (groups={"unit"})
+    public void onlyKnownKeysAreReadFromTheEnvironment() {
+        Map<String, String> values = AppConfig.layerSources(properties("customKey", "file"),
+                map("QA_CUSTOM_KEY", "environment")::get, map("customKey", "system")::get);
+
+        assertEquals(values.get("customKey"), "file");
+    }
+
+
+    @Test (groups={"unit"})
+    public void overridesAreLayeredAndRestored() throws Exception {
+        String browser = AppConfig.getBrowser();
+        String deviceName = AppConfig.getDeviceName();
+
+        AppConfig.withOverrides(map("browser", "unit-browser"), () -> {
+            assertEquals(AppConfig.getBrowser(), "unit-browser");
+
+            return AppConfig.withOverrides(map("deviceName", "unit-device"), () -> {
+                assertEquals(AppConfig.getBrowser(), "unit-browser");
+                assertEquals(AppConfig.getDeviceName(), "unit-device");
+                return null;
+            });
+        });
+
+        assertEquals(AppConfig.getBrowser(), browser);
+        assertEquals(AppConfig.getDeviceName(), deviceName);
+    }
+
+    @Test (groups={"unit"})
+    public void overridesAreClearedAfterAFailure() {
+        String browser = AppConfig.getBrowser();
+
+        try {
+            AppConfig.withOverrides(map("browser", "unit-browser"), () -> {
+                throw new IllegalStateException("expected");
+            });
+            fail("The exception of the block was not rethrown");
+
+        } catch (Exception e) {
+            assertEquals(e.getMessage(), "expected");
+        }
+
+        assertEquals(AppConfig.getBrowser(), browser);
+    }
+
+    @Test (groups={"unit"})
+    public void setOverridesLastsUntilCleared() {
+        String browser = AppConfig.getBrowser();
+
+        try {
+            AppConfig.setOverrides(map("browser", "unit-browser"));
+            assertEquals(AppConfig.getBrowser(), "unit-browser");
+
+        } finally {
+            AppConfig.clearOverrides();
+        }
+
+        assertEquals(AppConfig.getBrowser(), browser);
+    }
+
+    @Test (groups={"unit"})
+    public void invalidValuesAreAllReported() {
+        try {
+            AppConfig.snapshot().with(map("quietLogging", "maybe", "shard", "3/2", "machine", "nowhere"));
+            fail("Invalid values were accepted");
+
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Invalid configuration : "), e.getMessage());
+            assertTrue(e.getMessage().contains("quietLogging"), e.getMessage());
+            assertTrue(e.getMessage().contains("shard"), e.getMessage());
+            assertTrue(e.getMessage().contains("machine"), e.getMessage());
+        }
+    }
+
+    @Test (groups={"unit"})
+    public void snapshotsAreNotChangedByOverrides() {
+        AppConfig.Snapshot base = AppConfig.snapshot();
+        boolean driverPool = base.isDriverPoolEnabled();
+        AppConfig.Snapshot overridden = base.with(Collections.singletonMap("driverPool", String.valueOf(!driverPool)));
+
+        assertEquals(overridden.isDriverPoolEnabled(), !driverPool);
+        assertEquals(base.isDriverPoolEnabled(), driverPool);
+    }
+
+
+    private static Map<String, String> map(String ... keysAndValues) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) map.put(keysAndValues[i], keysAndValues[i + 1]);
+
+        return map;
+    }
+
+    private static Properties properties(String ... keysAndValues) {
+        Properties properties = new Properties();
+        properties.putAll(map(keysAndValues));
+
+        return properties;
+    }
+
+}
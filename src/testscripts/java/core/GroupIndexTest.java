@@ -0,0 +1,85 @@
+package core;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Unit tests of the group expressions compiled by {@link GroupIndex}.
+ *
+ * Run with {@code gradle runTests -Dgroup=unit}.
+ */
+public class GroupIndexTest {
+
+    @Test (groups={"unit"})
+    public void notBindsTighterThanAnd() {
+        Predicate<BitSet> expression = GroupIndex.compile("!a & b");
+
+        assertTrue(expression.test(groups("b")));
+        assertFalse(expression.test(groups("a")));
+        assertFalse(expression.test(groups("a", "b")));
+    }
+
+    @Test (groups={"unit"})
+    public void andBindsTighterThanOr() {
+        Predicate<BitSet> expression = GroupIndex.compile("a | b & c");
+
+        assertTrue(expression.test(groups("a")));
+        assertTrue(expression.test(groups("b", "c")));
+        assertFalse(expression.test(groups("b")));
+    }
+
+    @Test (groups={"unit"})
+    public void parenthesesOverridePrecedence() {
+        Predicate<BitSet> expression = GroupIndex.compile("(a | b) & !(c | d)");
+
+        assertTrue(expression.test(groups("a")));
+        assertTrue(expression.test(groups("b")));
+        assertFalse(expression.test(groups("a", "d")));
+        assertFalse(expression.test(groups("c")));
+    }
+
+    @Test (groups={"unit"})
+    public void groupNamesEndAtOperatorsAndWhitespace() {
+        Predicate<BitSet> expression = GroupIndex.compile("  webSmoke&!auto-bug|(dev-bug)");
+
+        assertTrue(expression.test(groups("webSmoke")));
+        assertTrue(expression.test(groups("dev-bug")));
+        assertFalse(expression.test(groups("webSmoke", "auto-bug")));
+    }
+
+    @Test (groups={"unit"})
+    public void allOfRequiresEveryGroup() {
+        Predicate<BitSet> required = GroupIndex.allOf(Arrays.asList("mobileSmoke", "checks"));
+
+        assertTrue(required.test(groups("mobileSmoke", "checks", "other")));
+        assertFalse(required.test(groups("mobileSmoke")));
+        assertTrue(GroupIndex.allOf(Collections.emptyList()).test(groups()));
+    }
+
+
+    @DataProvider
+    public Object[][] invalidExpressions() {
+        return new Object[][] {{""}, {"a &"}, {"& a"}, {"a b"}, {"(a | b"}, {"a | b)"}, {"!"}, {"a | | b"}, {"()"}};
+    }
+
+    @Test (groups={"unit"}, dataProvider="invalidExpressions", expectedExceptions=RuntimeException.class,
+            expectedExceptionsMessageRegExp="Invalid group expression .*")
+    public void invalidExpressionsAreRejected(String expression) {
+        GroupIndex.compile(expression);
+    }
+
+
+    private static BitSet groups(String ... names) {
+        return GroupIndex.getBits(Arrays.asList(names));
+    }
+
+}
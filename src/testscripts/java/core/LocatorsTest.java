@@ -0,0 +1,62 @@
+package core;
+
+import org.openqa.selenium.By;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+
+/**
+ * Unit tests of the XPath templating and interning of {@link Locators}.
+ *
+ * Run with {@code gradle runTests -Dgroup=unit}.
+ */
+public class LocatorsTest {
+
+    @Test (groups={"unit"})
+    public void placeholdersAreQuotedAsLiterals() {
+        assertEquals(Locators.xpath("//a[@text = %s][@index = %s]", "Pay", 2).toString(), By.xpath("//a[@text = 'Pay'][@index = '2']").toString());
+        assertEquals(Locators.xpath("//a[@text = %s]", "Bob's Grill").toString(), By.xpath("//a[@text = \"Bob's Grill\"]").toString());
+    }
+
+    @Test (groups={"unit"})
+    public void otherPercentSignsAreKept() {
+        assertEquals(Locators.xpath("//div[contains(@style, '100%')][@id = %s]", "total").toString(),
+                By.xpath("//div[contains(@style, '100%')][@id = 'total']").toString());
+    }
+
+    @Test (groups={"unit"})
+    public void literalsRoundTripThroughXPath() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+
+        for (String value : new String[] {"plain", "Bob's", "say \"hi\"", "Bob's \"special\"", "''\"\"", ""}) {
+            assertEquals(Locators.compile("string(" + Locators.literal(value) + ")").evaluate(document), value);
+        }
+    }
+
+    @Test (groups={"unit"})
+    public void locatorsAreInterned() {
+        assertSame(Locators.xpath("//android.widget.Button[@text = %s]", "OK"), Locators.xpath("//android.widget.Button[@text = 'OK']"));
+        assertSame(Locators.id("email"), Locators.id("email"));
+    }
+
+    @Test (groups={"unit"}, expectedExceptions=IllegalArgumentException.class)
+    public void missingArgumentsAreRejected() {
+        Locators.xpath("//a[@text = %s][@index = %s]", "Pay");
+    }
+
+    @Test (groups={"unit"}, expectedExceptions=IllegalArgumentException.class)
+    public void extraArgumentsAreRejected() {
+        Locators.xpath("//a[@text = %s]", "Pay", "Cancel");
+    }
+
+    @Test (groups={"unit"}, expectedExceptions=IllegalArgumentException.class)
+    public void invalidExpressionsAreRejected() {
+        Locators.xpath("//a[@text = %s", "Pay");
+    }
+
+}
@@ -0,0 +1,87 @@
+package core;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Unit tests of the strategies and the pause of {@link PollingStrategy}.
+ *
+ * Run with {@code gradle runTests -Dgroup=unit}.
+ */
+public class PollingStrategyTest {
+
+    private static final PollingStrategy neverCalled = (attempt) -> {
+        throw new AssertionError("No pause expected before attempt " + attempt);
+    };
+
+
+    @Test (groups={"unit"})
+    public void fixedPausesTheSameBeforeEveryRetry() {
+        PollingStrategy strategy = PollingStrategy.fixed(250);
+
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            assertEquals(strategy.getDelayInMillis(attempt), 250);
+        }
+    }
+
+    @Test (groups={"unit"})
+    public void backoffMultipliesUpToTheMaximum() {
+        PollingStrategy strategy = PollingStrategy.backoff(50, 2, 1000, 0);
+        long[] expected = {50, 100, 200, 400, 800, 1000, 1000};
+
+        for (int attempt = 1; attempt <= expected.length; attempt++) {
+            assertEquals(strategy.getDelayInMillis(attempt), expected[attempt - 1]);
+        }
+    }
+
+    @Test (groups={"unit"})
+    public void backoffJitterStaysWithinItsFraction() {
+        PollingStrategy strategy = PollingStrategy.backoff(100, 2, 1000, 0.25);
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = strategy.getDelayInMillis(3);
+            assertTrue(delay >= 300 && delay <= 500, "Delay out of range : " + delay);
+        }
+    }
+
+    @Test (groups={"unit"})
+    public void firstAttemptIsNeverPaused() throws Exception {
+        PollingStrategy.pause(neverCalled, 0, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test (groups={"unit"})
+    public void pauseIsCappedByTheDeadline() throws Exception {
+        long start = System.nanoTime();
+        PollingStrategy.pause(PollingStrategy.fixed(10000), 1, start + TimeUnit.MILLISECONDS.toNanos(100));
+
+        long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedInMillis >= 90 && elapsedInMillis < 2000, "Paused for " + elapsedInMillis + " ms");
+    }
+
+    @Test (groups={"unit"})
+    public void pauseAfterTheDeadlineReturnsImmediately() throws Exception {
+        long start = System.nanoTime();
+        PollingStrategy.pause(PollingStrategy.fixed(10000), 1, start - TimeUnit.SECONDS.toNanos(1));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test (groups={"unit"}, expectedExceptions=InterruptedException.class)
+    public void interruptEndsThePause() throws Exception {
+        Thread.currentThread().interrupt();
+
+        try {
+            PollingStrategy.pause(PollingStrategy.fixed(10000), 1, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+        } finally {
+            // Keeps the interrupt from leaking into the next test if the pause did not throw
+            Thread.interrupted();
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package core;
+
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+
+
+/**
+ * Unit tests of the ordering and sharding of {@link TestScheduler}. Each nested class stands for a test class.
+ *
+ * Run with {@code gradle runTests -Dgroup=unit}.
+ */
+public class TestSchedulerTest {
+
+    private static final class A {}
+    private static final class B {}
+    private static final class C {}
+    private static final class D {}
+    private static final class E {}
+
+
+    @Test (groups={"unit"})
+    public void ordersLongestClassFirst() {
+        IMethodInstance a = method(new A());
+        IMethodInstance firstOfB = method(new B());
+        IMethodInstance c = method(new C());
+        IMethodInstance secondOfB = method(new B());
+
+        List<IMethodInstance> scheduled = TestScheduler.schedule(Arrays.asList(a, firstOfB, c, secondOfB),
+                durations(A.class, 10, B.class, 30, C.class, 20), 1, 1);
+
+        // Methods of a class stay together, in their original order
+        assertEquals(scheduled, Arrays.asList(firstOfB, secondOfB, c, a));
+    }
+
+    @Test (groups={"unit"})
+    public void unknownClassesTakeTheMedianDuration() {
+        List<IMethodInstance> methods = methods(new A(), new B(), new C(), new D());
+
+        // D is given the median of 20, and ties with B are broken by class name
+        List<IMethodInstance> scheduled = TestScheduler.schedule(methods, durations(A.class, 10, B.class, 20, C.class, 30), 1, 1);
+
+        assertEquals(classesOf(scheduled), Arrays.asList(C.class, B.class, D.class, A.class));
+    }
+
+    @Test (groups={"unit"})
+    public void shardsFollowTheLongestProcessingTimeRule() {
+        List<IMethodInstance> methods = methods(new E(), new D(), new C(), new B(), new A());
+        Map<String, Long> durations = durations(A.class, 50, B.class, 40, C.class, 30, D.class, 20, E.class, 10);
+
+        // A -> 1 (50), B -> 2 (40), C -> 2 (70), D -> 1 (70), E -> 1 on a tie (80)
+        assertEquals(classesOf(TestScheduler.schedule(methods, durations, 1, 2)), Arrays.asList(A.class, D.class, E.class));
+        assertEquals(classesOf(TestScheduler.schedule(methods, durations, 2, 2)), Arrays.asList(B.class, C.class));
+    }
+
+    @Test (groups={"unit"})
+    public void shardsCoverEveryMethodOnce() {
+        List<IMethodInstance> methods = methods(new A(), new B(), new B(), new C(), new D(), new E(), new E());
+        Map<String, Long> durations = durations(A.class, 5, C.class, 500, E.class, 50);
+        List<IMethodInstance> allShards = new ArrayList<>();
+
+        for (int shard = 1; shard <= 3; shard++) {
+            allShards.addAll(TestScheduler.schedule(methods, durations, shard, 3));
+        }
+
+        assertEquals(allShards.size(), methods.size());
+        assertEquals(new HashSet<>(allShards), new HashSet<>(methods));
+    }
+
+    @Test (groups={"unit"})
+    public void withoutHistoryClassesRunByName() {
+        List<IMethodInstance> scheduled = TestScheduler.schedule(methods(new C(), new A(), new B()), Collections.emptyMap(), 1, 1);
+
+        assertEquals(classesOf(scheduled), Arrays.asList(A.class, B.class, C.class));
+    }
+
+
+    private static IMethodInstance method(Object instance) {
+        return new IMethodInstance() {
+            public ITestNGMethod getMethod() { return null; }
+
+            public Object[] getInstances() { return new Object[] {instance}; }
+
+            public Object getInstance() { return instance; }
+        };
+    }
+
+    private static List<IMethodInstance> methods(Object ... instances) {
+        List<IMethodInstance> methods = new ArrayList<>();
+        for (Object instance : instances) methods.add(method(instance));
+
+        return methods;
+    }
+
+    private static Map<String, Long> durations(Object ... classesAndDurations) {
+        Map<String, Long> durations = new HashMap<>();
+
+        for (int i = 0; i < classesAndDurations.length; i += 2) {
+            durations.put(((Class<?>) classesAndDurations[i]).getName(), ((Number) classesAndDurations[i + 1]).longValue());
+        }
+
+        return durations;
+    }
+
+    /**
+     * Returns the classes of the scheduled methods, in execution order, each listed once.
+     */
+    private static List<Class<?>> classesOf(List<IMethodInstance> scheduled) {
+        List<Class<?>> classes = new ArrayList<>();
+        Set<Class<?>> seen = new HashSet<>();
+
+        for (IMethodInstance method : scheduled) {
+            if (seen.add(method.getInstance().getClass())) {
+                classes.add(method.getInstance().getClass());
+            }
+        }
+
+        return classes;
+    }
+
+}